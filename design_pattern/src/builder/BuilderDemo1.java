@@ -2,69 +2,308 @@
 
 package builder;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
 class URL {
     /*
     The fields in this class are marked as final to ensure that they cannot be changed after the URL object is
     constructed. This makes the URL object immutable, which is a common feature in the Builder pattern.
     */
-    private final String protocol;
-    private final String hostName;
+    private final URLOrigin origin; // Protocol and host, shared by URLs built through URLFactory
     private final String pathParam;
     private final String queryParam;
 
+    /*
+    Rendering state. The exact length and whether the URL is plain ASCII are known at construction, so every
+    render sizes its target once. The rendered string is cached on first use; since String is immutable, two
+    threads racing to fill the cache just produce equal strings, and no lock is needed.
+    */
+    private static final ThreadLocal<byte[]> ASCII_SCRATCH = ThreadLocal.withInitial(() -> new byte[256]);
+
+    private final int length;
+    private final boolean ascii;
+    private String rendered;
+
     // Private constructor to ensure URL objects are only created through the Builder
     private URL(URLBuilder urlBuilder) {
-        this.protocol = urlBuilder.protocol;
-        this.hostName = urlBuilder.hostName;
-        this.pathParam = urlBuilder.pathParam;
-        this.queryParam = urlBuilder.queryParam;
+        this.origin = urlBuilder.origin;
+        this.pathParam = urlBuilder.renderPath();
+        this.queryParam = urlBuilder.renderQuery();
+        this.length = this.origin.length()
+                + (hasPath() ? 1 + this.pathParam.length() : 0)
+                + (hasQuery() ? 1 + this.queryParam.length() : 0);
+        this.ascii = isAscii(this.origin.getProtocol()) && isAscii(this.origin.getHostName())
+                && (!hasPath() || isAscii(this.pathParam)) && (!hasQuery() || isAscii(this.queryParam));
     }
 
-    // Method to build the URL string based on the object's fields
+    // Method to build the URL string based on the object's fields, rendered once and then cached
     public String getURL() {
-        StringBuilder url = new StringBuilder(this.protocol + "://" + this.hostName);
+        String url = this.rendered;
+        if (url == null) {
+            url = writeTo(new StringBuilder(this.length)).toString(); // Exact capacity, no resizing
+            this.rendered = url;
+        }
+        return url;
+    }
+
+    // Number of chars getURL() returns
+    public int length() {
+        return this.length;
+    }
 
-        if (this.pathParam != null && !this.pathParam.isEmpty()) {
-            url.append("/").append(this.pathParam);
+    // Appends the URL without creating any temporary string
+    public StringBuilder writeTo(StringBuilder out) {
+        if (this.rendered != null) {
+            return out.append(this.rendered);
         }
+        out.ensureCapacity(out.length() + this.length);
+        out.append(this.origin.getProtocol()).append("://").append(this.origin.getHostName());
+        if (hasPath()) {
+            out.append('/').append(this.pathParam);
+        }
+        if (hasQuery()) {
+            out.append('?').append(this.queryParam);
+        }
+        return out;
+    }
 
-        if (this.queryParam != null && !this.queryParam.isEmpty()) {
-            url.append("?").append(this.queryParam);
+    // Writes the URL at the buffer's position; throws BufferOverflowException without writing if it does not fit
+    public CharBuffer writeTo(CharBuffer out) {
+        if (out.remaining() < this.length) {
+            throw new BufferOverflowException();
         }
+        out.put(this.origin.getProtocol()).put("://").put(this.origin.getHostName());
+        if (hasPath()) {
+            out.put('/').put(this.pathParam);
+        }
+        if (hasQuery()) {
+            out.put('?').put(this.queryParam);
+        }
+        return out;
+    }
 
-        return url.toString();
+    /*
+    Writes the URL as UTF-8 at the buffer's position. URLs are ASCII once percent-encoded, which is the fast
+    path: one byte per char and no encoder. A URL with raw non-ASCII characters falls back to encoding a
+    byte array. Throws BufferOverflowException without writing if it does not fit.
+    */
+    public ByteBuffer writeTo(ByteBuffer out) {
+        if (!this.ascii) {
+            byte[] utf8 = getURL().getBytes(StandardCharsets.UTF_8);
+            if (out.remaining() < utf8.length) {
+                throw new BufferOverflowException();
+            }
+            return out.put(utf8);
+        }
+        if (out.remaining() < this.length) {
+            throw new BufferOverflowException();
+        }
+        int position = out.position();
+        if (out.hasArray()) {
+            writeAscii(out.array(), out.arrayOffset() + position);
+        } else {
+            // Direct buffers are slow to fill byte by byte: render into this thread's scratch array, then copy in bulk
+            byte[] scratch = ASCII_SCRATCH.get();
+            if (scratch.length < this.length) {
+                scratch = new byte[Math.max(this.length, scratch.length * 2)];
+                ASCII_SCRATCH.set(scratch);
+            }
+            writeAscii(scratch, 0);
+            out.put(position, scratch, 0, this.length);
+        }
+        return out.position(position + this.length);
+    }
+
+    private void writeAscii(byte[] target, int offset) {
+        offset = copyAscii(this.origin.getProtocol(), target, offset);
+        offset = copyAscii("://", target, offset);
+        offset = copyAscii(this.origin.getHostName(), target, offset);
+        if (hasPath()) {
+            target[offset++] = '/';
+            offset = copyAscii(this.pathParam, target, offset);
+        }
+        if (hasQuery()) {
+            target[offset++] = '?';
+            copyAscii(this.queryParam, target, offset);
+        }
+    }
+
+    public URLOrigin getOrigin() {
+        return this.origin;
+    }
+
+    // Two URLs are equal when they render the same; URLFactory relies on this to drop duplicates
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof URL)) {
+            return false;
+        }
+        URL other = (URL) o;
+        return this.length == other.length && this.origin.equals(other.origin)
+                && Objects.equals(normalized(this.pathParam), normalized(other.pathParam))
+                && Objects.equals(normalized(this.queryParam), normalized(other.queryParam));
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.origin, normalized(this.pathParam), normalized(this.queryParam));
+    }
+
+    // Null and empty parts render the same, so they compare the same
+    private static String normalized(String part) {
+        return part == null || part.isEmpty() ? null : part;
+    }
+
+    private boolean hasPath() {
+        return this.pathParam != null && !this.pathParam.isEmpty();
+    }
+
+    private boolean hasQuery() {
+        return this.queryParam != null && !this.queryParam.isEmpty();
+    }
+
+    // String.getBytes(int, int, byte[], int) is deprecated because it drops the high byte of each char, which is
+    // exactly right for ASCII, and it copies the string's bytes in bulk
+    @SuppressWarnings("deprecation")
+    private static int copyAscii(String value, byte[] target, int offset) {
+        value.getBytes(0, value.length(), target, offset);
+        return offset + value.length();
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
     }
 
     // Static inner class that provides the Builder pattern implementation
     public static class URLBuilder {
         /*
         The URLBuilder class uses the Builder pattern to allow flexible and incremental construction of a URL.
-        The protocol and hostName fields are final, ensuring they must be provided when the builder is created.
+        The origin (protocol and hostName) must be provided when the builder is created; only URLParser's
+        reusable builder replaces it, once per parsed line.
         The pathParam and queryParam fields are non-final, allowing them to be set optionally.
         */
-        private final String protocol;
-        private final String hostName;
+        private URLOrigin origin;
         private String pathParam;
         private String queryParam;
 
-        // Constructor that requires mandatory fields to be set
+        /*
+        Set by URLParser: path and query as byte ranges of 'source' (start -1 when absent), decoded into strings
+        only by build(). Setting the path or query directly replaces the slice.
+        */
+        private ByteBuffer source;
+        private int pathStart = -1;
+        private int pathEnd;
+        private int queryStart = -1;
+        private int queryEnd;
+        private byte[] sliceScratch;
+
+        /*
+        Structured query parameters, percent-encoded as they are added into one reusable char buffer as
+        "key=value&key=value". paramBounds holds three offsets per parameter (start, '=', end), so sorting and
+        deduping reorder offsets instead of strings. The buffers are allocated by the first addQueryParam(), so
+        builders that never add a parameter pay nothing for them. Once they have grown, adding a parameter
+        allocates nothing; build() creates the query string once.
+        */
+        private char[] params;
+        private int paramsLength;
+        private int[] paramBounds;
+        private int paramCount;
+        private boolean sortedQuery;
+        private boolean dedupedQuery;
+        private int[] order;
+        private char[] arranged;
+
+        // Constructor that requires mandatory fields to be set; throws NullPointerException if either is null
         public URLBuilder(String protocol, String hostName) {
-            this.protocol = protocol;
-            this.hostName = hostName;
+            this(new URLOrigin(protocol, hostName));
+        }
+
+        // Used by URLFactory to start from an interned origin
+        URLBuilder(URLOrigin origin) {
+            this.origin = origin;
         }
 
         // Method to set the optional pathParam field
         public URLBuilder setPathParam(String pathParam) {
             this.pathParam = pathParam;
+            this.pathStart = -1;
             return this; // Return the builder for method chaining
         }
 
-        // Method to set the optional queryParam field
+        // Method to set the optional queryParam field, already encoded; parameters added later are appended to it
         public URLBuilder setQueryParam(String queryParam) {
             this.queryParam = queryParam;
+            this.queryStart = -1;
             return this; // Return the builder for method chaining
         }
 
+        // Adds one query parameter; key and value are percent-encoded as UTF-8 (RFC 3986, space as %20)
+        public URLBuilder addQueryParam(CharSequence key, CharSequence value) {
+            if (paramBounds == null) {
+                paramBounds = new int[3 * 8];
+            } else if (paramBounds.length < 3 * (paramCount + 1)) {
+                paramBounds = Arrays.copyOf(paramBounds, paramBounds.length * 2);
+            }
+            // Worst case: 9 chars per char (a 3-byte UTF-8 char), plus '&' and '='
+            ensureParamsCapacity(paramsLength + 9 * (key.length() + value.length()) + 2);
+            int base = 3 * paramCount;
+            if (paramCount > 0) {
+                params[paramsLength++] = '&';
+            }
+            paramBounds[base] = paramsLength;
+            paramsLength = percentEncode(key, params, paramsLength);
+            paramBounds[base + 1] = paramsLength;
+            params[paramsLength++] = '=';
+            paramsLength = percentEncode(value, params, paramsLength);
+            paramBounds[base + 2] = paramsLength;
+            paramCount++;
+            return this;
+        }
+
+        private void ensureParamsCapacity(int capacity) {
+            if (params == null) {
+                params = new char[Math.max(capacity, 128)];
+            } else if (params.length < capacity) {
+                params = Arrays.copyOf(params, Math.max(capacity, params.length * 2));
+            }
+        }
+
+        /*
+        When true, build() sorts the added parameters by key, so the same parameters always give the same URL
+        whatever order they were added in, and URLs used as cache keys do not miss on parameter order. The sort is
+        stable: every value of a repeated key is kept, in the order added. The setQueryParam() part is left as is.
+        */
+        public URLBuilder setSortedQuery(boolean sortedQuery) {
+            this.sortedQuery = sortedQuery;
+            return this;
+        }
+
+        // When true, build() keeps only the last value added for a repeated key, at the place it was added
+        public URLBuilder setDedupedQuery(boolean dedupedQuery) {
+            this.dedupedQuery = dedupedQuery;
+            return this;
+        }
+
+        // Drops the added parameters but keeps the buffers, so the builder can be reused for the next URL
+        public URLBuilder clearQueryParams() {
+            paramsLength = 0;
+            paramCount = 0;
+            return this;
+        }
+
         /*
         The build() method is the final step in the Builder pattern. It creates and returns a new URL object
         using the current state of the URLBuilder. This method ensures that the URL object is fully constructed
@@ -73,6 +312,171 @@ class URL {
         public URL build() {
             return new URL(this);
         }
+
+        /*
+        Resets the builder to a parsed URL: the origin, plus path and query as slices of 'source'. The slices are
+        only read by build(), so build() must run before 'source' is changed.
+        */
+        void setSlices(URLOrigin origin, ByteBuffer source, int pathStart, int pathEnd, int queryStart, int queryEnd) {
+            this.origin = origin;
+            this.source = source;
+            this.pathParam = null;
+            this.pathStart = pathStart;
+            this.pathEnd = pathEnd;
+            this.queryParam = null;
+            this.queryStart = queryStart;
+            this.queryEnd = queryEnd;
+            clearQueryParams();
+        }
+
+        private String renderPath() {
+            return pathStart >= 0 ? decodeSlice(pathStart, pathEnd) : pathParam;
+        }
+
+        // Mapped files are direct buffers without an array: copy the slice once into a reused scratch array
+        private String decodeSlice(int start, int end) {
+            int length = end - start;
+            if (source.hasArray()) {
+                return new String(source.array(), source.arrayOffset() + start, length, StandardCharsets.UTF_8);
+            }
+            if (sliceScratch == null || sliceScratch.length < length) {
+                sliceScratch = new byte[Math.max(length, 256)];
+            }
+            source.get(start, sliceScratch, 0, length);
+            return new String(sliceScratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        // setQueryParam() part (or the parsed query) first, then the added parameters
+        private String renderQuery() {
+            String queryParam = queryStart >= 0 ? decodeSlice(queryStart, queryEnd) : this.queryParam;
+            if (paramCount == 0) {
+                return queryParam;
+            }
+            char[] added = params;
+            int addedLength = paramsLength;
+            if (sortedQuery || dedupedQuery) {
+                addedLength = arrangeParams();
+                added = arranged;
+            }
+            if (queryParam == null || queryParam.isEmpty()) {
+                return new String(added, 0, addedLength);
+            }
+            return new StringBuilder(queryParam.length() + 1 + addedLength)
+                    .append(queryParam).append('&').append(added, 0, addedLength).toString();
+        }
+
+        // Renders the sorted and/or deduped parameters into 'arranged' and returns their length
+        private int arrangeParams() {
+            if (order == null || order.length < paramCount) {
+                order = new int[Math.max(paramCount, 8)];
+            }
+            for (int i = 0; i < paramCount; i++) {
+                int j = i - 1;
+                // Insertion sort: queries have few parameters, and it is stable, so equal keys stay in added order
+                while (sortedQuery && j >= 0 && compareKeys(order[j], i) > 0) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = i;
+            }
+            if (arranged == null || arranged.length < paramsLength) {
+                arranged = new char[params.length];
+            }
+            int length = 0;
+            for (int i = 0; i < paramCount; i++) {
+                if (dedupedQuery && hasLaterValue(i)) {
+                    continue;
+                }
+                if (length > 0) {
+                    arranged[length++] = '&';
+                }
+                int start = paramBounds[3 * order[i]];
+                int end = paramBounds[3 * order[i] + 2];
+                System.arraycopy(params, start, arranged, length, end - start);
+                length += end - start;
+            }
+            return length;
+        }
+
+        // Whether a later parameter in 'order' has the same key; sorted, it can only be the next one
+        private boolean hasLaterValue(int i) {
+            int last = sortedQuery ? Math.min(i + 1, paramCount - 1) : paramCount - 1;
+            for (int j = i + 1; j <= last; j++) {
+                if (compareKeys(order[i], order[j]) == 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Compares encoded keys in place
+        private int compareKeys(int a, int b) {
+            int aStart = paramBounds[3 * a];
+            int aLength = paramBounds[3 * a + 1] - aStart;
+            int bStart = paramBounds[3 * b];
+            int bLength = paramBounds[3 * b + 1] - bStart;
+            for (int i = 0, n = Math.min(aLength, bLength); i < n; i++) {
+                int diff = params[aStart + i] - params[bStart + i];
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return aLength - bLength;
+        }
+
+        private static final boolean[] UNRESERVED = new boolean[128];
+        private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+        static {
+            for (char c = 'a'; c <= 'z'; c++) {
+                UNRESERVED[c] = true;
+                UNRESERVED[Character.toUpperCase(c)] = true;
+            }
+            for (char c = '0'; c <= '9'; c++) {
+                UNRESERVED[c] = true;
+            }
+            for (char c : "-._~".toCharArray()) {
+                UNRESERVED[c] = true;
+            }
+        }
+
+        // Writes 'value' percent-encoded at 'position' and returns the new end; UTF-8 bytes are computed by hand
+        static int percentEncode(CharSequence value, char[] out, int position) {
+            for (int i = 0, n = value.length(); i < n; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    if (UNRESERVED[c]) {
+                        out[position++] = c;
+                    } else {
+                        position = escape(c, out, position);
+                    }
+                } else if (c < 0x800) {
+                    position = escape(0xC0 | (c >> 6), out, position);
+                    position = escape(0x80 | (c & 0x3F), out, position);
+                } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    position = escape(0xF0 | (codePoint >> 18), out, position);
+                    position = escape(0x80 | ((codePoint >> 12) & 0x3F), out, position);
+                    position = escape(0x80 | ((codePoint >> 6) & 0x3F), out, position);
+                    position = escape(0x80 | (codePoint & 0x3F), out, position);
+                } else if (Character.isSurrogate(c)) {
+                    // Unpaired surrogate: String.getBytes(UTF_8) writes '?', so URLEncoder gives %3F; match it
+                    position = escape('?', out, position);
+                } else {
+                    position = escape(0xE0 | (c >> 12), out, position);
+                    position = escape(0x80 | ((c >> 6) & 0x3F), out, position);
+                    position = escape(0x80 | (c & 0x3F), out, position);
+                }
+            }
+            return position;
+        }
+
+        private static int escape(int b, char[] out, int position) {
+            out[position] = '%';
+            out[position + 1] = HEX[(b >> 4) & 0xF];
+            out[position + 2] = HEX[b & 0xF];
+            return position + 3;
+        }
     }
 }
 
@@ -100,6 +504,21 @@ public class BuilderDemo1 {
                 .setQueryParam("BA123123K")
                 .build();
         System.out.println(url4.getURL()); // Output: https://amazon.com?BA123123K
+
+        // Creating a URL from structured query parameters, encoded and sorted by key
+        URL url5 = new URL.URLBuilder("https", "amazon.com")
+                .setPathParam("s")
+                .addQueryParam("q", "iphone 17 & case")
+                .addQueryParam("color", "black")
+                .setSortedQuery(true)
+                .build();
+        System.out.println(url5.getURL()); // Output: https://amazon.com/s?color=black&q=iphone%2017%20%26%20case
+
+        // Going the other way: parsing bytes back into the builder, one line at a time
+        ByteBuffer log = ByteBuffer.wrap("https://amazon.com/shirt?BA123123K\nhttps://amazon.in/jeans\n"
+                .getBytes(StandardCharsets.US_ASCII));
+        URLParser parser = new URLParser();
+        parser.parseLines(log, builder -> System.out.println(builder.build().getURL()));
     }
 }
 
@@ -110,4 +529,7 @@ https://amazon.com
 https://amazon.com/shirt
 https://amazon.com/shirt?BA123123K
 https://amazon.com?BA123123K
+https://amazon.com/s?color=black&q=iphone%2017%20%26%20case
+https://amazon.com/shirt?BA123123K
+https://amazon.in/jeans
 */
\ No newline at end of file
@@ -1,12 +1,23 @@
 package builder;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 class URL1 {
     /*
     The URL1 class represents the final product that is built using the Builder pattern.
     It is immutable, meaning once an instance is created, its state cannot be changed.
     */
-    private final String protocol;
-    private final String hostName;
+    private final URLOrigin origin; // Protocol and host, shared by URLs built through URLFactory
     private final String pathParam;
     private final String queryParam;
 
@@ -15,8 +26,7 @@ class URL1 {
     This enforces the use of the Builder pattern.
     */
     private URL1(URLBuilder1 urlBuilder) {
-        this.protocol = urlBuilder.protocol;
-        this.hostName = urlBuilder.hostName;
+        this.origin = urlBuilder.origin;
         this.pathParam = urlBuilder.pathParam;
         this.queryParam = urlBuilder.queryParam;
     }
@@ -25,7 +35,7 @@ class URL1 {
     Method to construct the URL string based on the parameters set in the URL1 object.
     */
     public String getURL() {
-        StringBuilder url = new StringBuilder(this.protocol + "://" + this.hostName);
+        StringBuilder url = new StringBuilder(this.origin.getProtocol() + "://" + this.origin.getHostName());
 
         if (this.pathParam != null && !this.pathParam.isEmpty()) {
             url.append("/").append(this.pathParam);
@@ -38,22 +48,59 @@ class URL1 {
         return url.toString();
     }
 
+    public URLOrigin getOrigin() {
+        return this.origin;
+    }
+
+    /*
+    Two URL1 objects are equal when they render the same URL; URLFactory relies on this to drop duplicates.
+    */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof URL1)) {
+            return false;
+        }
+        URL1 other = (URL1) o;
+        return this.origin.equals(other.origin)
+                && Objects.equals(normalized(this.pathParam), normalized(other.pathParam))
+                && Objects.equals(normalized(this.queryParam), normalized(other.queryParam));
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.origin, normalized(this.pathParam), normalized(this.queryParam));
+    }
+
+    // Null and empty parts render the same, so they compare the same
+    private static String normalized(String part) {
+        return part == null || part.isEmpty() ? null : part;
+    }
+
     /*
     URLBuilder1 is a static inner class of URL1 and provides the methods to build a URL1 object.
     It follows the Builder pattern by allowing incremental construction of the URL1 object.
     */
     public static class URLBuilder1 {
-        private final String protocol; // Mandatory field
-        private final String hostName; // Mandatory field
+        private final URLOrigin origin; // Mandatory fields: protocol and hostName
         private String pathParam; // Optional field
         private String queryParam; // Optional field
 
         /*
         Constructor that requires mandatory fields (protocol and hostName) to be set.
+        Throws NullPointerException if either is null.
         */
         public URLBuilder1(String protocol, String hostName) {
-            this.protocol = protocol;
-            this.hostName = hostName;
+            this(new URLOrigin(protocol, hostName));
+        }
+
+        /*
+        Constructor used by URLFactory to start from an interned origin.
+        */
+        URLBuilder1(URLOrigin origin) {
+            this.origin = origin;
         }
 
         /*
@@ -74,6 +121,13 @@ class URL1 {
             return this; // Return the builder for fluent interface
         }
 
+        /*
+        The origin every URL1 from this builder gets; used by URLDirector templates.
+        */
+        URLOrigin getOrigin() {
+            return this.origin;
+        }
+
         /*
         The build() method creates a new URL1 instance using the current state of the builder.
         */
@@ -111,6 +165,22 @@ class URLDirector {
     public URL1 constructBasicURL() {
         return builder.build();
     }
+
+    /*
+    Template for bulk construction: every combination of host, path and query parameter values, using the
+    builder's protocol. Nothing is built until the template is streamed or written, see URLTemplate.
+    */
+    public URLTemplate constructTemplate(List<String> hostNames, List<String> paths,
+                                         Map<String, List<String>> queryParams) {
+        return new URLTemplate(builder.getOrigin().getProtocol(), hostNames, paths, queryParams);
+    }
+
+    /*
+    Same template on the builder's own host, as a lazy stream of URL1 objects.
+    */
+    public Stream<URL1> constructURLs(List<String> paths, Map<String, List<String>> queryParams) {
+        return constructTemplate(List.of(builder.getOrigin().getHostName()), paths, queryParams).stream();
+    }
 }
 
 public class BuilderDemo2 {
@@ -130,5 +200,48 @@ public class BuilderDemo2 {
         // Build a URL with both path and query parameters
         URL1 url2 = director.constructURLWithPathAndQuery("shirt", "BA123123K");
         System.out.println(url2.getURL()); // Output: https://amazon.com/shirt?BA123123K
+
+        // Bulk construction: 2 paths x 2 colors x 2 sizes, built lazily one URL1 at a time
+        Map<String, List<String>> params = new LinkedHashMap<>();
+        params.put("color", List.of("black", "white"));
+        params.put("size", List.of("M", "L"));
+        System.out.println(director.constructURLs(List.of("shirt", "jeans"), params)
+                .limit(5)
+                .map(URL1::getURL)
+                .collect(Collectors.joining(System.lineSeparator())));
+
+        // The same template over two hosts, rendered as bytes in small batches
+        URLTemplate template = director.constructTemplate(List.of("amazon.com", "amazon.in"),
+                List.of("shirt"), params);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        try {
+            long bytes = template.writeTo(Channels.newChannel(sink), ByteBuffer.allocate(128));
+            System.out.println(template.size() + " URLs, " + bytes + " bytes:");
+            System.out.print(sink.toString(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
     }
-}
\ No newline at end of file
+}
+
+
+/*
+OUTPUT:
+
+https://amazon.com
+https://amazon.com/shirt?BA123123K
+https://amazon.com/shirt?color=black&size=M
+https://amazon.com/shirt?color=black&size=L
+https://amazon.com/shirt?color=white&size=M
+https://amazon.com/shirt?color=white&size=L
+https://amazon.com/jeans?color=black&size=M
+8 URLs, 348 bytes:
+https://amazon.com/shirt?color=black&size=M
+https://amazon.com/shirt?color=black&size=L
+https://amazon.com/shirt?color=white&size=M
+https://amazon.com/shirt?color=white&size=L
+https://amazon.in/shirt?color=black&size=M
+https://amazon.in/shirt?color=black&size=L
+https://amazon.in/shirt?color=white&size=M
+https://amazon.in/shirt?color=white&size=L
+*/
@@ -0,0 +1,481 @@
+package builder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/*
+Micro-benchmarks for the URL builders. The project has no build tool, so there is no JMH on the classpath:
+each case warms up first and is measured on a single JVM run. Compare the cases against each other, not
+across machines.
+
+Run: java -Xmx1g builder.URLBenchmark
+*/
+public class URLBenchmark {
+    private static final int ITERATIONS = 5_000_000;
+
+    private static long sink; // Consumed results, so the JIT cannot drop the work
+
+    public static void main(String[] args) {
+        benchmarkRendering();
+        System.out.println();
+        benchmarkQueryBuilding();
+        System.out.println();
+        benchmarkHeap();
+        System.out.println();
+        benchmarkTemplates();
+        System.out.println();
+        benchmarkParsing();
+    }
+
+    // How getURL() used to render: an intermediate concatenation, then a default-sized StringBuilder
+    static String naiveRender(String protocol, String hostName, String pathParam, String queryParam) {
+        StringBuilder url = new StringBuilder(protocol + "://" + hostName);
+        if (pathParam != null && !pathParam.isEmpty()) {
+            url.append("/").append(pathParam);
+        }
+        if (queryParam != null && !queryParam.isEmpty()) {
+            url.append("?").append(queryParam);
+        }
+        return url.toString();
+    }
+
+    static void benchmarkRendering() {
+        String path = "electronics/mobiles/apple/iphone-17-pro";
+        String query = "color=black&storage=256GB&ref=homepage_banner";
+        URL cached = new URL.URLBuilder("https", "www.amazon.com").setPathParam(path).setQueryParam(query).build();
+        cached.getURL();
+        URL uncached = new URL.URLBuilder("https", "www.amazon.com").setPathParam(path).setQueryParam(query).build();
+
+        StringBuilder reusedBuilder = new StringBuilder(256);
+        CharBuffer charBuffer = CharBuffer.allocate(256);
+        ByteBuffer heapBuffer = ByteBuffer.allocate(256);
+        ByteBuffer directBuffer = ByteBuffer.allocateDirect(256);
+
+        System.out.printf("Rendering a %d-char URL%n", cached.length());
+        printHeader();
+        measure("naive concatenation", () -> sink += naiveRender("https", "www.amazon.com", path, query).length());
+        measure("exact-length render", () -> sink += uncached.writeTo(new StringBuilder(uncached.length())).length());
+        measure("getURL() cached", () -> sink += cached.getURL().length());
+        measure("writeTo(StringBuilder)", () -> {
+            reusedBuilder.setLength(0);
+            sink += uncached.writeTo(reusedBuilder).length();
+        });
+        measure("writeTo(CharBuffer)", () -> {
+            charBuffer.clear();
+            sink += uncached.writeTo(charBuffer).position();
+        });
+        measure("writeTo(heap ByteBuffer)", () -> {
+            heapBuffer.clear();
+            sink += uncached.writeTo(heapBuffer).position();
+        });
+        measure("writeTo(direct ByteBuffer)", () -> {
+            directBuffer.clear();
+            sink += uncached.writeTo(directBuffer).position();
+        });
+    }
+
+    // How callers assembled query strings by hand: URLEncoder per part and repeated concatenation
+    static String naiveQuery(String[] keys, String[] values) {
+        String query = "";
+        for (int i = 0; i < keys.length; i++) {
+            if (!query.isEmpty()) {
+                query += "&";
+            }
+            query += URLEncoder.encode(keys[i], StandardCharsets.UTF_8) + "="
+                    + URLEncoder.encode(values[i], StandardCharsets.UTF_8);
+        }
+        return query;
+    }
+
+    static void benchmarkQueryBuilding() {
+        String[] keys = {"q", "category", "color", "storage", "ref", "page"};
+        String[] values = {"iphone 17 pro & case", "electronics/mobiles", "black", "256GB", "homepage banner", "2"};
+        URL.URLBuilder reused = new URL.URLBuilder("https", "www.amazon.com").setPathParam("s");
+        URL.URLBuilder canonical = new URL.URLBuilder("https", "www.amazon.com").setPathParam("s")
+                .setSortedQuery(true);
+
+        System.out.printf("Building a URL with %d query parameters%n", keys.length);
+        printHeader();
+        measure("naive concatenation", () -> sink += new URL.URLBuilder("https", "www.amazon.com").setPathParam("s")
+                .setQueryParam(naiveQuery(keys, values)).build().length());
+        measure("addQueryParam, add only", () -> {
+            reused.clearQueryParams();
+            for (int i = 0; i < keys.length; i++) {
+                reused.addQueryParam(keys[i], values[i]);
+            }
+            sink += reused.hashCode();
+        });
+        measure("addQueryParam + build()", () -> {
+            reused.clearQueryParams();
+            for (int i = 0; i < keys.length; i++) {
+                reused.addQueryParam(keys[i], values[i]);
+            }
+            sink += reused.build().length();
+        });
+        measure("canonical (sorted) build()", () -> {
+            canonical.clearQueryParams();
+            for (int i = keys.length - 1; i >= 0; i--) {
+                canonical.addQueryParam(keys[i], values[i]);
+            }
+            sink += canonical.build().length();
+        });
+        System.out.println(reused.build().getURL());
+        System.out.println(canonical.build().getURL());
+    }
+
+    /*
+    Retained heap for a large URL set, as it would be after parsing an access log: every part is a fresh string,
+    a few origins cover all URLs, and popular pages repeat. Plain builders keep every copy; URLFactory shares
+    origins and drops repeated URLs. The factory's own cache is counted in its result.
+    */
+    static void benchmarkHeap() {
+        int count = 1_000_000;
+        System.out.printf("Retaining %,d URLs parsed from a synthetic access log%n", count);
+        System.out.printf("%-28s %12s %14s%n", "Case", "bytes/URL", "URL objects");
+
+        URL[] urls = new URL[count];
+        long before = usedHeap();
+        AccessLog log = new AccessLog();
+        for (int i = 0; i < count; i++) {
+            log.next();
+            urls[i] = new URL.URLBuilder(log.protocol, log.hostName)
+                    .setPathParam(log.pathParam).setQueryParam(log.queryParam).build();
+        }
+        long plainBytes = usedHeap() - before;
+        System.out.printf("%-28s %12.1f %,14d%n", "plain URLBuilder", (double) plainBytes / count, distinct(urls));
+        String sample = urls[count - 1].getURL();
+        long distinctInLog = Arrays.stream(urls).distinct().count();
+        Arrays.fill(urls, null);
+
+        before = usedHeap();
+        URLFactory factory = new URLFactory(1 << 16);
+        log = new AccessLog();
+        for (int i = 0; i < count; i++) {
+            log.next();
+            urls[i] = factory.build(factory.newURLBuilder(log.protocol, log.hostName)
+                    .setPathParam(log.pathParam).setQueryParam(log.queryParam));
+        }
+        long factoryBytes = usedHeap() - before;
+        System.out.printf("%-28s %12.1f %,14d%n", "URLFactory", (double) factoryBytes / count, distinct(urls));
+        System.out.printf("distinct URLs: %,d, origins: %d, cache: %,d slots, hit rate: %.1f%%, same last URL: %b%n",
+                distinctInLog, factory.getOriginCount(), factory.getCacheSize(),
+                100.0 * factory.getCacheHits() / (factory.getCacheHits() + factory.getCacheMisses()),
+                sample.equals(urls[count - 1].getURL()));
+    }
+
+    // Generates the same URL sequence for every instance; each part is a substring of a freshly built log line
+    static final class AccessLog {
+        private static final String[] PROTOCOLS = {"https", "http"};
+        private final Random random = new Random(42);
+        String protocol;
+        String hostName;
+        String pathParam;
+        String queryParam;
+
+        void next() {
+            String protocol = PROTOCOLS[random.nextInt(10) == 0 ? 1 : 0];
+            String host = "shop" + random.nextInt(5) + ".example.com";
+            // Skewed popularity: low page numbers come up far more often
+            String path = "products/category" + random.nextInt(10) + "/item" + skewed(5_000);
+            String query = random.nextInt(4) == 0 ? "ref=campaign" + random.nextInt(3) : "";
+            String line = protocol + "://" + host + "/" + path + "?" + query;
+
+            int hostStart = protocol.length() + 3;
+            int pathStart = hostStart + host.length() + 1;
+            int queryStart = pathStart + path.length() + 1;
+            this.protocol = line.substring(0, protocol.length());
+            this.hostName = line.substring(hostStart, pathStart - 1);
+            this.pathParam = line.substring(pathStart, queryStart - 1);
+            this.queryParam = query.isEmpty() ? null : line.substring(queryStart);
+        }
+
+        // 0 is the most popular, then roughly 1/x
+        private int skewed(int bound) {
+            return (int) Math.pow(bound, random.nextDouble()) - 1;
+        }
+    }
+
+    private static int distinct(URL[] urls) {
+        Set<URL> identities = Collections.newSetFromMap(new IdentityHashMap<>());
+        Collections.addAll(identities, urls);
+        return identities.size();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /*
+    Bulk generation from a 100M-URL template. Only a prefix is generated, which is the point: nothing is
+    materialized, so the cost per URL and the heap stay the same however large the template is.
+    */
+    static void benchmarkTemplates() {
+        List<String> hosts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            hosts.add("shop" + i + ".example.com");
+        }
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            paths.add("products/item" + i);
+        }
+        Map<String, List<String>> params = new LinkedHashMap<>();
+        for (String key : new String[]{"color", "size", "ref"}) {
+            List<String> values = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                values.add(key + i);
+            }
+            params.put(key, values);
+        }
+        URLDirector director = new URLDirector(new URL1.URLBuilder1("https", "example.com"));
+        URLTemplate template = director.constructTemplate(hosts, paths, params);
+        long count = 20_000_000;
+        System.out.printf("Generating %,d of %,d URLs from a template%n", count, template.size());
+        System.out.printf("%-28s %10s %14s %12s%n", "Case", "ns/URL", "bytes/URL", "heap MB");
+
+        long heapBefore = usedHeap();
+        CountingChannel channel = new CountingChannel();
+        ByteBuffer batch = ByteBuffer.allocate(64 * 1024);
+        try {
+            template.writeTo(0, count / 4, channel, batch); // Warm-up
+            long start = System.nanoTime();
+            long bytes = template.writeTo(0, count, channel, batch);
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%-28s %10.1f %14.1f %12.1f%n", "writeTo(channel), 64KB", (double) elapsed / count,
+                    (double) bytes / count, (usedHeap() - heapBefore) / 1e6);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        for (boolean parallel : new boolean[]{false, true}) {
+            Stream<URL1> urls = template.stream(0, count);
+            if (parallel) {
+                urls = urls.parallel();
+            }
+            long start = System.nanoTime();
+            long chars = urls.mapToLong(url -> url.getURL().length()).sum();
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%-28s %10.1f %14.1f %12s%n", parallel ? "stream().parallel()" : "stream()",
+                    (double) elapsed / count, (double) chars / count, "-");
+        }
+        System.out.printf("(%d CPUs)%n", Runtime.getRuntime().availableProcessors());
+    }
+
+    // How a log was read before URLParser: a String per line, then substrings per part
+    static URL naiveParse(String line) {
+        int colon = line.indexOf("://");
+        int hostStart = colon + 3;
+        int slash = line.indexOf('/', hostStart);
+        int question = line.indexOf('?', hostStart);
+        int hostEnd = slash >= 0 ? slash : question >= 0 ? question : line.length();
+        URL.URLBuilder builder = new URL.URLBuilder(line.substring(0, colon), line.substring(hostStart, hostEnd));
+        if (slash >= 0) {
+            builder.setPathParam(line.substring(slash + 1, question >= 0 ? question : line.length()));
+        }
+        if (question >= 0) {
+            builder.setQueryParam(line.substring(question + 1));
+        }
+        return builder.build();
+    }
+
+    /*
+    Parsing a 4M-line URL log written by URLTemplate. The file is read once first, so every case runs from the
+    page cache; the numbers are parsing cost, not disk speed.
+    */
+    static void benchmarkParsing() {
+        Path file = null;
+        try {
+            file = Files.createTempFile("urls", ".log");
+            List<String> hosts = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                hosts.add("shop" + i + ".example.com");
+            }
+            List<String> paths = new ArrayList<>();
+            for (int i = 0; i < 2_000; i++) {
+                paths.add("products/item" + i);
+            }
+            Map<String, List<String>> params = new LinkedHashMap<>();
+            params.put("color", List.of("black", "white", "blue", "red"));
+            params.put("ref", List.of("home", "search", "ad", "email", "social"));
+            URLTemplate template = new URLDirector(new URL1.URLBuilder1("https", "example.com"))
+                    .constructTemplate(hosts, paths, params);
+            try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                template.writeTo(out, ByteBuffer.allocate(64 * 1024));
+            }
+            long bytes = Files.size(file);
+            long lines = template.size();
+            System.out.printf("Parsing %,d URLs (%,d MB)%n", lines, bytes >> 20);
+            System.out.printf("%-30s %10s %10s %12s%n", "Case", "ns/URL", "MB/s", "URLs");
+
+            int parallelism = Math.max(4, Runtime.getRuntime().availableProcessors());
+            LongAdder built = new LongAdder();
+            Map<String, LogParse> cases = new LinkedHashMap<>();
+            cases.put("BufferedReader + substring", URLBenchmark::parseNaively);
+            cases.put("URLParser, scan only", log -> URLParser.parseFile(log, 1, null, builder -> sink++));
+            cases.put("URLParser, build()",
+                    log -> URLParser.parseFile(log, 1, null, builder -> sink += builder.build().length()));
+            cases.put("parseFile, " + parallelism + " parts, build()",
+                    log -> URLParser.parseFile(log, parallelism, null, builder -> built.add(builder.build().length())));
+            for (int round = 0; round < 2; round++) { // The first round warms up
+                for (Map.Entry<String, LogParse> entry : cases.entrySet()) {
+                    long start = System.nanoTime();
+                    long count = entry.getValue().parse(file);
+                    long elapsed = System.nanoTime() - start;
+                    if (round == 1) {
+                        System.out.printf("%-30s %10.1f %10.0f %,12d%n", entry.getKey(), (double) elapsed / count,
+                                bytes / 1e6 / (elapsed / 1e9), count);
+                    }
+                }
+            }
+            sink += built.sum();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (file != null) {
+                file.toFile().delete();
+            }
+        }
+    }
+
+    // One way of reading the whole log; returns the number of URLs
+    interface LogParse {
+        long parse(Path log) throws IOException;
+    }
+
+    private static long parseNaively(Path log) throws IOException {
+        long count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(log)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                sink += naiveParse(line).length();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Discards what it is given, like a fast socket
+    static final class CountingChannel implements WritableByteChannel {
+        long bytes;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            src.position(src.limit());
+            bytes += n;
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    static void printHeader() {
+        System.out.printf("%-28s %10s %12s%n", "Case", "ns/op", "bytes/op");
+    }
+
+    static void measure(String name, Runnable op) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            op.run(); // Warm-up
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            op.run();
+        }
+        double nanos = (double) (System.nanoTime() - start) / ITERATIONS;
+        System.out.printf("%-28s %10.1f %12.1f%n", name, nanos, allocatedBytesPerOp(op));
+    }
+
+    // HotSpot per-thread allocation counter, -1 if the JVM does not provide it
+    static double allocatedBytesPerOp(Runnable op) {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) bean;
+        long threadId = Thread.currentThread().getId();
+        long before = hotspot.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            op.run();
+        }
+        return (double) (hotspot.getThreadAllocatedBytes(threadId) - before) / ITERATIONS;
+    }
+}
+
+/*
+OUTPUT (one run on a 1-CPU machine with -Xmx1g; ns/op varies by a few ns between runs):
+Rendering a 108-char URL
+Case                              ns/op     bytes/op
+naive concatenation               102.7        496.0
+exact-length render                65.6        152.0
+getURL() cached                     6.2          0.0
+writeTo(StringBuilder)             60.3          0.0
+writeTo(CharBuffer)                67.2          0.0
+writeTo(heap ByteBuffer)           45.3          0.0
+writeTo(direct ByteBuffer)         65.3          0.0
+
+Building a URL with 6 query parameters
+Case                              ns/op     bytes/op
+naive concatenation              1618.9       3776.0
+addQueryParam, add only           327.9          0.0
+addQueryParam + build()           394.8        200.0
+canonical (sorted) build()        632.2        200.0
+https://www.amazon.com/s?q=iphone%2017%20pro%20%26%20case&category=electronics%2Fmobiles&color=black&storage=256GB&ref=homepage%20banner&page=2
+https://www.amazon.com/s?category=electronics%2Fmobiles&color=black&page=2&q=iphone%2017%20pro%20%26%20case&ref=homepage%20banner&storage=256GB
+
+Retaining 1,000,000 URLs parsed from a synthetic access log
+Case                            bytes/URL    URL objects
+plain URLBuilder                    259.8      1,000,000
+URLFactory                           70.0        495,665
+distinct URLs: 287,759, origins: 10, cache: 65,536 slots, hit rate: 50.4%, same last URL: true
+
+Generating 20,000,000 of 100,000,000 URLs from a template
+Case                             ns/URL      bytes/URL      heap MB
+writeTo(channel), 64KB             72.6           76.4          0.1
+stream()                          100.7           75.4            -
+stream().parallel()                88.4           75.4            -
+(1 CPUs)
+
+Parsing 4,000,000 URLs (248 MB)
+Case                               ns/URL       MB/s         URLs
+BufferedReader + substring          416.5        157    4,000,000
+URLParser, scan only                139.1        469    4,000,000
+URLParser, build()                  250.8        260    4,000,000
+parseFile, 4 parts, build()         287.2        227    4,000,000
+*/
@@ -0,0 +1,113 @@
+package builder;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Canonicalizing factory for URL and URL1, for code that keeps large sets of URLs in memory.
+
+- Origins: builders from newURLBuilder()/newURLBuilder1() start from an interned URLOrigin, so all URLs with the
+  same protocol and host share one origin object and one copy of both strings. Origins are few and kept for
+  the factory's lifetime.
+- Whole URLs: build() returns an equal URL built earlier when there is one, so the new duplicate becomes
+  garbage straight away. The cache is a fixed array of weak references indexed by hash: it never grows past
+  its size, holds nothing the rest of the program has dropped, and a colliding URL just replaces the slot.
+  Lookups are best effort: a miss only costs a duplicate, never a wrong answer.
+
+Thread-safe. Cache slots are written without locking; a racing thread may miss an entry, which is harmless.
+*/
+final class URLFactory {
+    private final Map<String, Map<String, URLOrigin>> origins = new ConcurrentHashMap<>(); // protocol -> host -> origin
+    private final WeakReference<?>[] cache;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // 'cacheSize' is rounded up to a power of two
+    URLFactory(int cacheSize) {
+        if (cacheSize <= 0) {
+            throw new IllegalArgumentException("cacheSize must be positive: " + cacheSize);
+        }
+        int size = Integer.highestOneBit(Math.max(1, cacheSize - 1)) << 1;
+        this.cache = new WeakReference<?>[size];
+        this.mask = size - 1;
+    }
+
+    // Two-level map, so a lookup does not build a "protocol://host" key
+    public URLOrigin origin(String protocol, String hostName) {
+        Objects.requireNonNull(protocol, "protocol");
+        Objects.requireNonNull(hostName, "hostName");
+        Map<String, URLOrigin> hosts = origins.get(protocol);
+        if (hosts == null) {
+            hosts = origins.computeIfAbsent(protocol, p -> new ConcurrentHashMap<>());
+        }
+        URLOrigin origin = hosts.get(hostName);
+        if (origin == null) {
+            origin = hosts.computeIfAbsent(hostName, h -> new URLOrigin(protocol, h));
+        }
+        return origin;
+    }
+
+    public URL.URLBuilder newURLBuilder(String protocol, String hostName) {
+        return new URL.URLBuilder(origin(protocol, hostName));
+    }
+
+    public URL1.URLBuilder1 newURLBuilder1(String protocol, String hostName) {
+        return new URL1.URLBuilder1(origin(protocol, hostName));
+    }
+
+    public URL build(URL.URLBuilder builder) {
+        return canonical(builder.build());
+    }
+
+    public URL1 build(URL1.URLBuilder1 builder) {
+        return canonical(builder.build());
+    }
+
+    // The cached URL equal to 'url', or 'url' itself after caching it
+    public URL canonical(URL url) {
+        return canonicalize(url);
+    }
+
+    public URL1 canonical(URL1 url) {
+        return canonicalize(url);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T canonicalize(T value) {
+        int h = value.hashCode();
+        int slot = (h ^ (h >>> 16)) & mask;
+        WeakReference<?> ref = cache[slot];
+        Object cached = ref == null ? null : ref.get();
+        if (value.equals(cached)) {
+            hits.increment();
+            return (T) cached;
+        }
+        misses.increment();
+        cache[slot] = new WeakReference<>(value);
+        return value;
+    }
+
+    public int getOriginCount() {
+        int count = 0;
+        for (Map<String, URLOrigin> hosts : origins.values()) {
+            count += hosts.size();
+        }
+        return count;
+    }
+
+    public int getCacheSize() {
+        return cache.length;
+    }
+
+    public long getCacheHits() {
+        return hits.sum();
+    }
+
+    public long getCacheMisses() {
+        return misses.sum();
+    }
+}
@@ -0,0 +1,56 @@
+package builder;
+
+import java.util.Objects;
+
+/*
+The protocol and host of a URL, e.g. "https://amazon.com". Large URL sets usually have only a few distinct
+origins, so URLFactory interns them: every URL built through the factory shares one origin object and one copy
+of the two strings, instead of keeping its own. Immutable.
+*/
+final class URLOrigin {
+    private final String protocol;
+    private final String hostName;
+    private final int hash;
+
+    // Both parts are mandatory: fails here, where the builder is created, instead of on the first hashCode()
+    URLOrigin(String protocol, String hostName) {
+        this.protocol = Objects.requireNonNull(protocol, "protocol");
+        this.hostName = Objects.requireNonNull(hostName, "hostName");
+        this.hash = 31 * protocol.hashCode() + hostName.hashCode();
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public String getHostName() {
+        return hostName;
+    }
+
+    // Chars of "protocol://hostName"
+    public int length() {
+        return protocol.length() + 3 + hostName.length();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true; // Interned origins are compared by identity
+        }
+        if (!(o instanceof URLOrigin)) {
+            return false;
+        }
+        URLOrigin other = (URLOrigin) o;
+        return hash == other.hash && protocol.equals(other.protocol) && hostName.equals(other.hostName);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return protocol + "://" + hostName;
+    }
+}
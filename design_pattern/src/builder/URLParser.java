@@ -0,0 +1,291 @@
+package builder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/*
+The reverse of URLBuilder -> string: scans URLs in bytes, e.g. a memory-mapped log file with one URL per line,
+and fills one reusable URL.URLBuilder per parser.
+
+parse() only finds the part boundaries. Path and query stay byte ranges of the source until the caller calls
+build(), so lines that are only counted or filtered never become strings. Origins are looked up by their bytes
+in a small cache, so a repeated "protocol://host" creates no strings at all, and with a URLFactory every parsed
+URL shares the factory's interned origins.
+
+Accepted form: protocol "://" host ["/" path] ["?" query] ["#" fragment, ignored]. A line ending in "\r\n" is
+fine. One parser per thread; parseFile() runs one per worker.
+*/
+final class URLParser {
+    private static final int ORIGIN_CACHE_SIZE = 256; // Power of two
+    private static final int WINDOW = 1 << 30;          // Largest region mapped at once
+
+    private final URLFactory factory; // May be null
+    private final URL.URLBuilder builder = new URL.URLBuilder((URLOrigin) null);
+    private final byte[][] originKeys = new byte[ORIGIN_CACHE_SIZE][];
+    private final URLOrigin[] origins = new URLOrigin[ORIGIN_CACHE_SIZE];
+    private boolean parsed; // Whether the last scanLine() filled the builder
+    private long malformed;
+
+    URLParser() {
+        this(null);
+    }
+
+    URLParser(URLFactory factory) {
+        this.factory = factory;
+    }
+
+    /*
+    Parses source bytes [start, end) into the reusable builder and returns it, or null if they are not a URL.
+    The builder reads the source again in build(), so call build() before changing it.
+    */
+    public URL.URLBuilder parse(ByteBuffer source, int start, int end) {
+        scanLine(source, start, end);
+        return parsed ? builder : null;
+    }
+
+    /*
+    Parses every line of source [position, limit) and hands each URL's builder to 'action', which either builds it
+    or ignores it. Blank lines are skipped, malformed ones counted. Returns the number of URLs.
+    */
+    public long parseLines(ByteBuffer source, Consumer<URL.URLBuilder> action) {
+        long count = 0;
+        int lineStart = source.position();
+        int limit = source.limit();
+        while (lineStart < limit) {
+            int lineEnd = scanLine(source, lineStart, limit);
+            if (parsed) {
+                action.accept(builder);
+                count++;
+            }
+            lineStart = lineEnd + 1;
+        }
+        return count;
+    }
+
+    /*
+    One pass over a line: finds the part boundaries and the line end ('\n' or 'limit') together, hashing the
+    origin bytes on the way, so each byte is read once plus once more to confirm an origin cache hit.
+    Returns the line end; 'parsed' tells whether the builder was filled.
+    */
+    private int scanLine(ByteBuffer source, int start, int limit) {
+        parsed = false;
+        int hash = 1;
+        int i = start;
+        byte b = 0;
+        while (i < limit && (b = source.get(i)) != ':' && b != '\n') {
+            hash = 31 * hash + b;
+            i++;
+        }
+        int colon = i;
+        if (i == limit || b == '\n') {
+            return blankOrMalformed(source, start, i);
+        }
+        if (colon == start || colon + 3 > limit || source.get(colon + 1) != '/' || source.get(colon + 2) != '/') {
+            return malformed(source, i, limit);
+        }
+        hash = 31 * (31 * (31 * hash + ':') + '/') + '/';
+        int hostStart = colon + 3;
+        i = hostStart;
+        while (i < limit && (b = source.get(i)) != '/' && b != '?' && b != '#' && b != '\n' && b != '\r') {
+            hash = 31 * hash + b;
+            i++;
+        }
+        int hostEnd = i;
+        if (hostEnd == hostStart) {
+            return malformed(source, i, limit);
+        }
+        int pathStart = -1;
+        if (i < limit && b == '/') {
+            pathStart = ++i;
+            while (i < limit && (b = source.get(i)) != '?' && b != '#' && b != '\n' && b != '\r') {
+                i++;
+            }
+        }
+        int pathEnd = i;
+        int queryStart = -1;
+        if (i < limit && b == '?') {
+            queryStart = ++i;
+            while (i < limit && (b = source.get(i)) != '#' && b != '\n' && b != '\r') {
+                i++;
+            }
+        }
+        int queryEnd = i;
+        i = indexOf(source, i, limit, (byte) '\n'); // Skips a fragment or '\r'
+        builder.setSlices(origin(source, start, colon, hostEnd, hash), source, pathStart, pathEnd, queryStart,
+                queryEnd);
+        parsed = true;
+        return i;
+    }
+
+    // A line without ':' is malformed unless it is empty or just "\r"
+    private int blankOrMalformed(ByteBuffer source, int start, int end) {
+        if (end > start && !(end == start + 1 && source.get(start) == '\r')) {
+            malformed++;
+        }
+        return end;
+    }
+
+    private int malformed(ByteBuffer source, int from, int limit) {
+        malformed++;
+        return indexOf(source, from, limit, (byte) '\n');
+    }
+
+    // Lines that were not URLs, so far
+    public long getMalformedCount() {
+        return malformed;
+    }
+
+    /*
+    Parses a file of URLs, one per line. With parallelism > 1 the file is cut into that many parts at line
+    boundaries and each part runs on its own thread with its own parser, so 'action' must be thread-safe;
+    URLs within a part arrive in file order. Parts larger than 1GB are mapped one window at a time.
+    Returns the number of URLs.
+    */
+    public static long parseFile(Path file, int parallelism, URLFactory factory, Consumer<URL.URLBuilder> action)
+            throws IOException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1: " + parallelism);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = splitAtLines(channel, parallelism);
+            if (bounds.length == 2) {
+                return parseRegion(channel, bounds[0], bounds[1], new URLParser(factory), action);
+            }
+            ExecutorService workers = Executors.newFixedThreadPool(bounds.length - 1);
+            try {
+                List<Future<Long>> parts = new ArrayList<>();
+                for (int i = 0; i + 1 < bounds.length; i++) {
+                    long from = bounds[i];
+                    long to = bounds[i + 1];
+                    parts.add(workers.submit(() -> parseRegion(channel, from, to, new URLParser(factory), action)));
+                }
+                long count = 0;
+                for (Future<Long> part : parts) {
+                    count += part.get();
+                }
+                return count;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while parsing " + file, e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IllegalStateException("Parsing " + file + " failed", e.getCause());
+            } finally {
+                workers.shutdownNow();
+            }
+        }
+    }
+
+    // Maps [from, to) one window at a time; a window ends after its last complete line
+    private static long parseRegion(FileChannel channel, long from, long to, URLParser parser,
+                                    Consumer<URL.URLBuilder> action) throws IOException {
+        long count = 0;
+        while (from < to) {
+            long size = Math.min(WINDOW, to - from);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, from, size);
+            int limit = (int) size;
+            if (from + size < to) {
+                int lastNewline = lastIndexOf(window, 0, limit, (byte) '\n');
+                if (lastNewline < 0) {
+                    throw new IOException("Line longer than " + WINDOW + " bytes at offset " + from);
+                }
+                limit = lastNewline + 1;
+            }
+            window.limit(limit);
+            count += parser.parseLines(window, action);
+            from += limit;
+        }
+        return count;
+    }
+
+    // File offsets [0, b1, ..., size]: roughly equal parts, each moved forward to just after a newline
+    private static long[] splitAtLines(FileChannel channel, int parts) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        for (int i = 1; i < parts; i++) {
+            long offset = Math.max(bounds.get(bounds.size() - 1), size * i / parts);
+            long cut = -1;
+            while (cut < 0 && offset < size) {
+                probe.clear();
+                int read = channel.read(probe, offset);
+                if (read <= 0) {
+                    break;
+                }
+                int newline = indexOf(probe, 0, read, (byte) '\n');
+                if (newline < read) {
+                    cut = offset + newline + 1;
+                }
+                offset += read;
+            }
+            if (cut < 0 || cut >= size) {
+                break; // The rest is a single line
+            }
+            if (cut > bounds.get(bounds.size() - 1)) {
+                bounds.add(cut);
+            }
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    // Origin for bytes [start, hostEnd), i.e. "protocol://host", from the cache when seen before
+    private URLOrigin origin(ByteBuffer source, int start, int colon, int hostEnd, int hash) {
+        int slot = (hash ^ (hash >>> 16)) & (ORIGIN_CACHE_SIZE - 1);
+        byte[] key = originKeys[slot];
+        if (key != null && key.length == hostEnd - start && equals(source, start, key)) {
+            return origins[slot];
+        }
+        key = new byte[hostEnd - start];
+        source.get(start, key);
+        String protocol = new String(key, 0, colon - start, StandardCharsets.UTF_8);
+        String hostName = new String(key, colon + 3 - start, hostEnd - colon - 3, StandardCharsets.UTF_8);
+        URLOrigin origin = factory != null ? factory.origin(protocol, hostName) : new URLOrigin(protocol, hostName);
+        originKeys[slot] = key;
+        origins[slot] = origin;
+        return origin;
+    }
+
+    private static boolean equals(ByteBuffer source, int start, byte[] key) {
+        for (int i = 0; i < key.length; i++) {
+            if (source.get(start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // First index of 'b' in [from, to), or 'to'
+    private static int indexOf(ByteBuffer source, int from, int to, byte b) {
+        for (int i = from; i < to; i++) {
+            if (source.get(i) == b) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private static int lastIndexOf(ByteBuffer source, int from, int to, byte b) {
+        for (int i = to - 1; i >= from; i--) {
+            if (source.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,277 @@
+package builder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/*
+Every URL from hosts x paths x query parameter combinations, without materializing the set.
+
+Each URL has an index in [0, size()), decoded as mixed-radix digits (host, path, then one digit per query
+parameter, the last parameter varying fastest). Anything can therefore be produced on demand from its index:
+stream() is LongStream.range(...).mapToObj(...), which is lazy and splits evenly for parallel streams, and
+writeTo() renders a range of indexes straight into a byte batch.
+
+Parts are used as given, so they must already be percent-encoded. An empty path list or parameter map means
+"no path" / "no query"; a parameter with no values makes the template empty.
+*/
+final class URLTemplate {
+    private static final int QUERY_CACHE_LIMIT = 1 << 16; // Query strings shared by all URL1s when there are few
+
+    private final URLOrigin[] origins;
+    private final String[] paths;
+    private final String[] keys;
+    private final String[][] values;
+    private final long[] strides; // Combinations of the parameters after each one
+    private final String[] queries; // null when there are more than QUERY_CACHE_LIMIT combinations
+    private final long queryCount;
+    private final long size;
+
+    // UTF-8 forms for writeTo()
+    private final byte[][] originBytes;
+    private final byte[][] pathBytes;
+    private final byte[][] keyBytes;
+    private final byte[][][] valueBytes;
+
+    URLTemplate(String protocol, List<String> hostNames, List<String> paths, Map<String, List<String>> queryParams) {
+        if (hostNames.isEmpty()) {
+            throw new IllegalArgumentException("At least one host is needed");
+        }
+        this.origins = new URLOrigin[hostNames.size()];
+        this.originBytes = new byte[origins.length][];
+        for (int i = 0; i < origins.length; i++) {
+            origins[i] = new URLOrigin(protocol, hostNames.get(i)); // One shared origin per host
+            originBytes[i] = origins[i].toString().getBytes(StandardCharsets.UTF_8);
+        }
+        this.paths = paths.isEmpty() ? new String[]{""} : paths.toArray(new String[0]);
+        this.pathBytes = utf8(this.paths);
+
+        this.keys = queryParams.keySet().toArray(new String[0]);
+        this.keyBytes = utf8(keys);
+        this.values = new String[keys.length][];
+        this.valueBytes = new byte[keys.length][][];
+        this.strides = new long[keys.length];
+        long combinations = 1;
+        for (int k = keys.length - 1; k >= 0; k--) {
+            values[k] = queryParams.get(keys[k]).toArray(new String[0]);
+            valueBytes[k] = utf8(values[k]);
+            strides[k] = combinations;
+            combinations = Math.multiplyExact(combinations, values[k].length);
+        }
+        this.queryCount = combinations;
+        this.size = Math.multiplyExact(Math.multiplyExact((long) origins.length, this.paths.length), queryCount);
+
+        if (keys.length > 0 && queryCount <= QUERY_CACHE_LIMIT) {
+            this.queries = new String[(int) queryCount];
+            for (int q = 0; q < queries.length; q++) {
+                queries[q] = renderQuery(q);
+            }
+        } else {
+            this.queries = null;
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public URL1 get(long index) {
+        checkIndex(index);
+        long rest = index / queryCount;
+        return new URL1.URLBuilder1(origins[(int) (rest / paths.length)])
+                .setPathParam(paths[(int) (rest % paths.length)])
+                .setQueryParam(query(index % queryCount))
+                .build();
+    }
+
+    // Lazy and SIZED: only the URLs a terminal operation pulls are built, and parallel() splits by index range
+    public Stream<URL1> stream() {
+        return LongStream.range(0, size).mapToObj(this::get);
+    }
+
+    // Same order as stream(); 'from' inclusive, 'to' exclusive
+    public Stream<URL1> stream(long from, long to) {
+        checkRange(from, to);
+        return LongStream.range(from, to).mapToObj(this::get);
+    }
+
+    /*
+    Renders URL 'index' as UTF-8 at the buffer's position and returns the number of bytes written, or -1
+    without writing anything if it does not fit.
+    */
+    public int writeTo(long index, ByteBuffer out) {
+        checkIndex(index);
+        int[] digits = new int[2 + keys.length];
+        decode(index, digits);
+        return write(digits, out);
+    }
+
+    /*
+    Writes URLs [from, to) to the channel, one per line, in batches of up to batch.capacity() bytes. Only the
+    batch buffer is used, so memory stays flat however many URLs are written. Returns the bytes written.
+    */
+    public long writeTo(long from, long to, WritableByteChannel channel, ByteBuffer batch) throws IOException {
+        checkRange(from, to);
+        long written = 0;
+        batch.clear();
+        if (from == to) {
+            return 0;
+        }
+        // Decode once, then step the digits like an odometer: no divisions per URL
+        int[] digits = new int[2 + keys.length];
+        decode(from, digits);
+        for (long index = from; index < to; index++) {
+            if (!putLine(digits, batch)) {
+                written += flush(channel, batch);
+                if (!putLine(digits, batch)) {
+                    throw new IllegalArgumentException("URL " + index + " is longer than the batch buffer");
+                }
+            }
+            increment(digits);
+        }
+        return written + flush(channel, batch);
+    }
+
+    public long writeTo(WritableByteChannel channel, ByteBuffer batch) throws IOException {
+        return writeTo(0, size, channel, batch);
+    }
+
+    private boolean putLine(int[] digits, ByteBuffer batch) {
+        if (batch.remaining() < 1) {
+            return false;
+        }
+        batch.limit(batch.limit() - 1); // Keep room for the newline
+        int length = write(digits, batch);
+        batch.limit(batch.limit() + 1);
+        if (length < 0) {
+            return false;
+        }
+        batch.put((byte) '\n');
+        return true;
+    }
+
+    // digits: host, path, then one value index per query parameter
+    private int write(int[] digits, ByteBuffer out) {
+        byte[] origin = originBytes[digits[0]];
+        byte[] path = pathBytes[digits[1]];
+        int length = origin.length + (path.length > 0 ? 1 + path.length : 0);
+        for (int k = 0; k < keys.length; k++) {
+            length += 2 + keyBytes[k].length + valueBytes[k][digits[2 + k]].length; // '?' or '&', then key=value
+        }
+        if (out.remaining() < length) {
+            return -1;
+        }
+        if (!out.hasArray()) {
+            out.put(origin);
+            if (path.length > 0) {
+                out.put((byte) '/').put(path);
+            }
+            for (int k = 0; k < keys.length; k++) {
+                out.put(k == 0 ? (byte) '?' : (byte) '&');
+                out.put(keyBytes[k]).put((byte) '=').put(valueBytes[k][digits[2 + k]]);
+            }
+            return length;
+        }
+        // Heap buffers: copy into the backing array, a handful of small put() calls cost more than the bytes
+        byte[] array = out.array();
+        int position = out.arrayOffset() + out.position();
+        position = copy(origin, array, position);
+        if (path.length > 0) {
+            array[position++] = '/';
+            position = copy(path, array, position);
+        }
+        for (int k = 0; k < keys.length; k++) {
+            array[position++] = k == 0 ? (byte) '?' : (byte) '&';
+            position = copy(keyBytes[k], array, position);
+            array[position++] = '=';
+            position = copy(valueBytes[k][digits[2 + k]], array, position);
+        }
+        out.position(out.position() + length);
+        return length;
+    }
+
+    private static int copy(byte[] part, byte[] array, int position) {
+        System.arraycopy(part, 0, array, position, part.length);
+        return position + part.length;
+    }
+
+    private void decode(long index, int[] digits) {
+        long q = index % queryCount;
+        long rest = index / queryCount;
+        digits[0] = (int) (rest / paths.length);
+        digits[1] = (int) (rest % paths.length);
+        for (int k = 0; k < keys.length; k++) {
+            digits[2 + k] = digit(q, k);
+        }
+    }
+
+    // Next index: the last digit varies fastest and carries into the one before it
+    private void increment(int[] digits) {
+        for (int d = digits.length - 1; d >= 0; d--) {
+            int radix = d == 0 ? origins.length : d == 1 ? paths.length : values[d - 2].length;
+            if (++digits[d] < radix) {
+                return;
+            }
+            digits[d] = 0;
+        }
+    }
+
+    private static long flush(WritableByteChannel channel, ByteBuffer batch) throws IOException {
+        batch.flip();
+        long written = 0;
+        while (batch.hasRemaining()) {
+            written += channel.write(batch);
+        }
+        batch.clear();
+        return written;
+    }
+
+    private String query(long q) {
+        if (keys.length == 0) {
+            return null;
+        }
+        return queries != null ? queries[(int) q] : renderQuery(q);
+    }
+
+    private String renderQuery(long q) {
+        StringBuilder query = new StringBuilder();
+        for (int k = 0; k < keys.length; k++) {
+            if (k > 0) {
+                query.append('&');
+            }
+            query.append(keys[k]).append('=').append(values[k][digit(q, k)]);
+        }
+        return query.toString();
+    }
+
+    // Value index of parameter k in query combination q
+    private int digit(long q, int k) {
+        return (int) (q / strides[k] % values[k].length);
+    }
+
+    private void checkIndex(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+
+    private void checkRange(long from, long to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for size " + size);
+        }
+    }
+
+    private static byte[][] utf8(String[] parts) {
+        List<byte[]> bytes = new ArrayList<>(parts.length);
+        for (String part : parts) {
+            bytes.add(part.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toArray(new byte[0][]);
+    }
+}
@@ -0,0 +1,112 @@
+package observer;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+Subject that only cares about the newest headline. setNews() just records the value, and a delivery cycle
+on the scheduler pushes whatever is newest to the channels. Everything published within the window, or while
+the previous delivery is still running, collapses into one fan-out.
+*/
+class ConflatingNewsAgency extends NewsAgency {
+    private final ScheduledExecutorService scheduler;
+    private final long windowMillis; // 0 = conflate only while a delivery is in progress
+    private final AtomicReference<String> pending = new AtomicReference<>();
+    private final AtomicBoolean cycleScheduled = new AtomicBoolean(false);
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+    private final AtomicLong suppressedChannelUpdates = new AtomicLong();
+
+    public ConflatingNewsAgency(ScheduledExecutorService scheduler, long windowMillis) {
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("windowMillis must not be negative: " + windowMillis);
+        }
+        this.scheduler = scheduler;
+        this.windowMillis = windowMillis;
+    }
+
+    // Delivery happens on the scheduler thread, so registry changes are serialized with it
+    @Override
+    public synchronized void addObserver(Channel channel) {
+        super.addObserver(channel);
+    }
+
+    @Override
+    public synchronized void removeObserver(Channel channel) {
+        super.removeObserver(channel);
+    }
+
+    // The pending headline is this subject's queue
+    @Override
+    public void setMetrics(DispatchMetrics metrics) {
+        super.setMetrics(metrics);
+        if (metrics != null) {
+            metrics.setQueueDepth(() -> pending.get() == null ? 0 : 1);
+        }
+    }
+
+    @Override
+    public void setNews(String news) {
+        published.incrementAndGet();
+        if (pending.getAndSet(news) != null) {
+            // The previous headline was never delivered - its whole fan-out is skipped
+            suppressed.incrementAndGet();
+            DispatchMetrics metrics = getMetrics();
+            if (metrics != null) {
+                metrics.recordDrop();
+            }
+            suppressedChannelUpdates.addAndGet(getChannelCount());
+        }
+        if (cycleScheduled.compareAndSet(false, true)) {
+            scheduleCycle();
+        }
+    }
+
+    private void scheduleCycle() {
+        if (windowMillis > 0) {
+            scheduler.schedule(this::deliverLatest, windowMillis, TimeUnit.MILLISECONDS);
+        } else {
+            scheduler.execute(this::deliverLatest);
+        }
+    }
+
+    private void deliverLatest() {
+        try {
+            String latest = pending.getAndSet(null);
+            if (latest != null) {
+                synchronized (this) {
+                    super.setNews(latest);
+                }
+                delivered.incrementAndGet();
+            }
+        } finally {
+            cycleScheduled.set(false);
+            // Headlines that arrived during the fan-out start the next cycle
+            if (pending.get() != null && cycleScheduled.compareAndSet(false, true)) {
+                scheduleCycle();
+            }
+        }
+    }
+
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    public long getSuppressedCount() {
+        return suppressed.get();
+    }
+
+    // Channel.update calls that conflation avoided
+    public long getSuppressedChannelUpdates() {
+        return suppressedChannelUpdates.get();
+    }
+}
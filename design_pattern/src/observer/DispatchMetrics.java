@@ -0,0 +1,161 @@
+package observer;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/*
+Dispatch metrics for one subject: publishes, fan-out size, per-subscriber delivery latency, drops and queue
+depth. Subjects take it through an optional setMetrics(), so without it they pay nothing.
+
+Recording is allocation-free: one map lookup and one LatencyHistogram.record() per delivery, with delivery
+counts summed from the histograms on read. That is roughly 20-30ns on top of the two nanoTime() calls that
+measure the delivery, whose cost depends on the machine's clock source. Per-subscriber histograms are keyed by the
+subscriber's name (its class name unless the subject says otherwise). Subscribers sharing a name share a
+histogram, which keeps memory bounded with 100k subscribers of a handful of kinds.
+
+snapshot() returns an immutable copy. Rates are per second since the previous snapshot. Thread-safe, public so
+the observer.revision subpackages can use it as well.
+*/
+public final class DispatchMetrics {
+    private final String subject;
+    private final Function<Object, String> subscriberName;
+    private final Map<String, LatencyHistogram> latencyBySubscriber = new ConcurrentHashMap<>();
+
+    private final LongAdder publishes = new LongAdder();
+    private final LongAdder fanOutTotal = new LongAdder();
+    private final LongAdder drops = new LongAdder();
+    private final AtomicLong maxFanOut = new AtomicLong();
+    private volatile LongSupplier queueDepth = () -> 0;
+
+    private long lastSnapshotNanos = System.nanoTime();  // Guarded by 'this'
+    private long lastSnapshotPublishes;                  // Guarded by 'this'
+
+    public DispatchMetrics(String subject) {
+        this(subject, subscriber -> subscriber.getClass().getSimpleName());
+    }
+
+    public DispatchMetrics(String subject, Function<Object, String> subscriberName) {
+        this.subject = subject;
+        this.subscriberName = subscriberName;
+    }
+
+    public void recordPublish(int fanOut) {
+        publishes.increment();
+        fanOutTotal.add(fanOut);
+        long currentMax;
+        while (fanOut > (currentMax = maxFanOut.get()) && !maxFanOut.compareAndSet(currentMax, fanOut)) {
+            // Another publisher raised it concurrently, re-check
+        }
+    }
+
+    public void recordDelivery(Object subscriber, long nanos) {
+        String name = subscriberName.apply(subscriber);
+        LatencyHistogram histogram = latencyBySubscriber.get(name);
+        if (histogram == null) {
+            histogram = latencyBySubscriber.computeIfAbsent(name, n -> new LatencyHistogram());
+        }
+        histogram.record(nanos);
+    }
+
+    public void recordDrop() {
+        drops.increment();
+    }
+
+    public void recordDrops(long count) {
+        drops.add(count);
+    }
+
+    // For subjects that queue messages, e.g. the pending lag of all mailboxes
+    public void setQueueDepth(LongSupplier queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public synchronized Snapshot snapshot() {
+        long now = System.nanoTime();
+        long totalPublishes = publishes.sum();
+        double seconds = Math.max(1, now - lastSnapshotNanos) / 1e9;
+        double publishRate = (totalPublishes - lastSnapshotPublishes) / seconds;
+        lastSnapshotNanos = now;
+        lastSnapshotPublishes = totalPublishes;
+
+        // Deliveries are not counted separately on the hot path, every delivery lands in exactly one histogram
+        long deliveries = 0;
+        Map<String, SubscriberSnapshot> subscribers = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : latencyBySubscriber.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            SubscriberSnapshot stats = new SubscriberSnapshot(histogram.getCount(), histogram.valueAtPercentile(50),
+                    histogram.valueAtPercentile(99), histogram.getMaxNanos());
+            subscribers.put(entry.getKey(), stats);
+            deliveries += stats.deliveries;
+        }
+        return new Snapshot(subject, totalPublishes, publishRate, deliveries, fanOutTotal.sum(),
+                maxFanOut.get(), drops.sum(), queueDepth.getAsLong(), subscribers);
+    }
+
+    public static final class SubscriberSnapshot {
+        public final long deliveries;
+        public final long p50Nanos;
+        public final long p99Nanos;
+        public final long maxNanos;
+
+        SubscriberSnapshot(long deliveries, long p50Nanos, long p99Nanos, long maxNanos) {
+            this.deliveries = deliveries;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("deliveries=%d p50=%dns p99=%dns max=%dµs", deliveries, p50Nanos, p99Nanos,
+                    TimeUnit.NANOSECONDS.toMicros(maxNanos));
+        }
+    }
+
+    public static final class Snapshot {
+        public final String subject;
+        public final long publishes;
+        public final double publishesPerSecond;
+        public final long deliveries;
+        public final long fanOutTotal;  // Observers addressed, deliveries can be fewer (conflation, drops, lag)
+        public final long maxFanOut;
+        public final long drops;
+        public final long queueDepth;
+        public final Map<String, SubscriberSnapshot> subscribers;
+
+        Snapshot(String subject, long publishes, double publishesPerSecond, long deliveries, long fanOutTotal,
+                 long maxFanOut, long drops, long queueDepth, Map<String, SubscriberSnapshot> subscribers) {
+            this.subject = subject;
+            this.publishes = publishes;
+            this.publishesPerSecond = publishesPerSecond;
+            this.deliveries = deliveries;
+            this.fanOutTotal = fanOutTotal;
+            this.maxFanOut = maxFanOut;
+            this.drops = drops;
+            this.queueDepth = queueDepth;
+            this.subscribers = Collections.unmodifiableMap(new LinkedHashMap<>(subscribers));
+        }
+
+        public double averageFanOut() {
+            return publishes == 0 ? 0 : (double) fanOutTotal / publishes;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format(
+                    "%s: publishes=%d (%.0f/s) fanOut avg=%.1f max=%d deliveries=%d drops=%d queueDepth=%d", subject, publishes, publishesPerSecond, averageFanOut(), maxFanOut, deliveries, drops, queueDepth));
+            subscribers.forEach((name, stats) -> sb.append(System.lineSeparator())
+                    .append("  ").append(name).append(": ").append(stats));
+            return sb.toString();
+        }
+    }
+}
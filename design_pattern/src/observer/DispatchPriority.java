@@ -0,0 +1,5 @@
+package observer;
+
+enum DispatchPriority {
+    HIGH, NORMAL, LOW;
+}
@@ -0,0 +1,229 @@
+package observer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/*
+Append-only write-ahead journal for observer subjects, backed by a memory-mapped file.
+
+A subject appends every event before dispatching it and waits for commit(), so an event that reached any
+observer is on disk. Each subscriber then acknowledges the offset it has processed. After a restart the
+subscriber replays from its acknowledged offset, so delivery resumes where it stopped.
+
+Layout of <name>.journal: records of [int length][int crc32][payload], zero-filled after the last record.
+Recovery scans until a zero length or a checksum mismatch (a torn write), and appending continues there.
+Offsets are byte positions: a record's offset is where it starts, and an ack stores where the next one starts.
+
+Layout of <name>.acks: fixed 64-byte slots of [byte id length][id bytes][long acked offset].
+
+Group commit: with it, the first committer forces everything appended so far and the threads queued behind it
+usually find their records already covered, so N concurrent publishers share one fsync. Without it every
+append forces on its own. Mapped writes survive a crash of the process itself even before they are forced;
+forcing is what protects against losing the machine.
+
+Thread-safe. Public so the observer.revision subpackages can use it as well.
+*/
+public final class EventJournal implements Closeable {
+    private static final int HEADER_BYTES = 8;
+    private static final int ACK_SLOT_BYTES = 64;
+    private static final int MAX_ID_BYTES = ACK_SLOT_BYTES - 1 - Long.BYTES;
+    private static final int ACK_SLOTS = 4096;
+
+    private final FileChannel journalFile;
+    private final FileChannel ackFile;
+    private final MappedByteBuffer journal;
+    private final MappedByteBuffer acks;
+    private final boolean groupCommit;
+    private final CRC32 crc = new CRC32();  // Guarded by itself
+
+    private final Map<String, Integer> ackSlots = new HashMap<>();  // Guarded by itself
+    private final Object flushLock = new Object();
+    private long writePosition;           // Guarded by 'this'
+    private volatile long durablePosition;
+    private long forces;                  // Guarded by flushLock
+
+    public EventJournal(Path directory, String name, long capacityBytes, boolean groupCommit) throws IOException {
+        if (capacityBytes <= HEADER_BYTES || capacityBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("capacityBytes must be between 9 and 2^31-1: " + capacityBytes);
+        }
+        this.groupCommit = groupCommit;
+        this.journalFile = FileChannel.open(directory.resolve(name + ".journal"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.ackFile = FileChannel.open(directory.resolve(name + ".acks"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.journal = journalFile.map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(capacityBytes, journalFile.size()));
+        this.acks = ackFile.map(FileChannel.MapMode.READ_WRITE, 0, (long) ACK_SLOTS * ACK_SLOT_BYTES);
+        this.writePosition = recoverEnd();
+        this.durablePosition = writePosition;
+        loadAckSlots();
+    }
+
+    // Scans to the end of the last intact record
+    private long recoverEnd() {
+        int position = 0;
+        while (position + HEADER_BYTES <= journal.capacity()) {
+            int length = journal.getInt(position);
+            if (length <= 0 || position + HEADER_BYTES + length > journal.capacity()
+                    || journal.getInt(position + Integer.BYTES) != checksum(position + HEADER_BYTES, length)) {
+                break;
+            }
+            position += HEADER_BYTES + length;
+        }
+        // Wipe a torn tail so it cannot be mistaken for a record later
+        for (int i = position; i < Math.min(journal.capacity(), position + HEADER_BYTES); i++) {
+            journal.put(i, (byte) 0);
+        }
+        return position;
+    }
+
+    private void loadAckSlots() {
+        for (int slot = 0; slot < ACK_SLOTS; slot++) {
+            int base = slot * ACK_SLOT_BYTES;
+            int idLength = acks.get(base);
+            if (idLength == 0) {
+                break;
+            }
+            byte[] id = new byte[idLength];
+            acks.get(base + 1, id);
+            ackSlots.put(new String(id, StandardCharsets.UTF_8), slot);
+        }
+    }
+
+    // Appends one event and returns the offset after it, pass that to commit()
+    public long append(byte[] payload) {
+        if (payload.length == 0) {
+            throw new IllegalArgumentException("Empty events cannot be journaled");
+        }
+        long end;
+        synchronized (this) {
+            int position = (int) writePosition;
+            if (position + HEADER_BYTES + payload.length + HEADER_BYTES > journal.capacity()) {
+                throw new IllegalStateException("Journal is full at " + position + " bytes");
+            }
+            journal.put(position + HEADER_BYTES, payload);
+            journal.putInt(position + Integer.BYTES, checksum(position + HEADER_BYTES, payload.length));
+            journal.putInt(position, payload.length);  // Written last, it makes the record visible to recovery
+            end = writePosition = position + HEADER_BYTES + payload.length;
+            if (!groupCommit) {
+                force(end);
+            }
+        }
+        return end;
+    }
+
+    public long append(String event) {
+        return append(event.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Blocks until everything up to 'end' is on disk
+    public void commit(long end) {
+        if (durablePosition >= end) {
+            return;
+        }
+        long target;
+        synchronized (this) {
+            target = writePosition;  // Take everything appended so far along in the same force
+        }
+        force(target);
+    }
+
+    private void force(long target) {
+        synchronized (flushLock) {
+            long from = durablePosition;
+            if (from >= target) {
+                return;  // A committer ahead of us already covered it
+            }
+            journal.force((int) from, (int) (target - from));
+            acks.force();
+            forces++;
+            durablePosition = target;
+        }
+    }
+
+    // Replays every event from 'offset' on, handing each payload and the offset after it to the consumer
+    public long replay(long offset, BiConsumer<byte[], Long> consumer) {
+        long end;
+        synchronized (this) {
+            end = writePosition;
+        }
+        int position = (int) offset;
+        while (position < end) {
+            int length = journal.getInt(position);
+            byte[] payload = new byte[length];
+            journal.get(position + HEADER_BYTES, payload);
+            position += HEADER_BYTES + length;
+            consumer.accept(payload, (long) position);
+        }
+        return position;
+    }
+
+    // Records that 'subscriberId' has processed everything before 'offset'
+    public void acknowledge(String subscriberId, long offset) {
+        acks.putLong(slotOf(subscriberId) * ACK_SLOT_BYTES + 1 + MAX_ID_BYTES, offset);
+    }
+
+    // 0 for a subscriber the journal has never seen, so it gets the whole history
+    public long acknowledgedOffset(String subscriberId) {
+        return acks.getLong(slotOf(subscriberId) * ACK_SLOT_BYTES + 1 + MAX_ID_BYTES);
+    }
+
+    private int slotOf(String subscriberId) {
+        synchronized (ackSlots) {
+            Integer slot = ackSlots.get(subscriberId);
+            if (slot != null) {
+                return slot;
+            }
+            byte[] id = subscriberId.getBytes(StandardCharsets.UTF_8);
+            if (id.length == 0 || id.length > MAX_ID_BYTES) {
+                throw new IllegalArgumentException("Subscriber id must be 1 to " + MAX_ID_BYTES + " bytes: " + subscriberId);
+            }
+            if (ackSlots.size() == ACK_SLOTS) {
+                throw new IllegalStateException("No ack slot left for " + subscriberId);
+            }
+            int newSlot = ackSlots.size();
+            int base = newSlot * ACK_SLOT_BYTES;
+            acks.put(base + 1, id);
+            acks.putLong(base + 1 + MAX_ID_BYTES, 0);
+            acks.put(base, (byte) id.length);  // Written last, like a record length
+            ackSlots.put(subscriberId, newSlot);
+            return newSlot;
+        }
+    }
+
+    private int checksum(int position, int length) {
+        synchronized (crc) {
+            crc.reset();
+            crc.update(journal.slice(position, length));
+            return (int) crc.getValue();
+        }
+    }
+
+    public synchronized long getEndOffset() {
+        return writePosition;
+    }
+
+    public long getForceCount() {
+        synchronized (flushLock) {
+            return forces;
+        }
+    }
+
+    // Forces what is left and releases the files; the mapping itself goes away with the buffer
+    @Override
+    public void close() throws IOException {
+        commit(getEndOffset());
+        acks.force();
+        journalFile.close();
+        ackFile.close();
+    }
+}
@@ -0,0 +1,104 @@
+package observer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.IntFunction;
+
+/*
+Publish latency (p50/p99/p99.9/max) and bytes allocated per publish for every subject in this package, with
+1 to 100k subscribers. The subjects here are single-threaded by design, so publisher-thread scaling lives in
+revision_1/ObserverChannelBenchmark together with the thread-safe channels and ChatGroup.
+
+Observers are silent no-op implementations so the numbers show the subject's own fan-out cost.
+
+Run: java -Xmx1g observer.ObserverBenchmark
+*/
+public class ObserverBenchmark {
+    private static final String NEWS = "India won the 1st test match against England";
+
+    static class SilentChannel implements Channel {
+        @Override
+        public void update(Object o) {
+        }
+    }
+
+    static class SilentChannelV1 implements ChannelV1 {
+        @Override
+        public void updateNews(String news, NewsAgencyV1 newsAgencyV1) {
+        }
+    }
+
+    static class SilentStockAlert implements NotificationAlertObserver {
+        @Override
+        public void update() {
+        }
+    }
+
+    static class SilentStockAlertV2 implements NotificationAlertObserverV2 {
+        @Override
+        public void update(StockObservableV2 stockObservableV2) {
+        }
+    }
+
+    public static void main(String[] args) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+        // Each factory builds the subject with n subscribers and returns one "publish" operation
+        Map<String, IntFunction<Runnable>> subjects = new LinkedHashMap<>();
+        subjects.put("NewsAgency", n -> {
+            NewsAgency agency = new NewsAgency();
+            for (int i = 0; i < n; i++) {
+                agency.addObserver(new SilentChannel());
+            }
+            return () -> agency.setNews(NEWS);
+        });
+        subjects.put("ConflatingNewsAgency", n -> {
+            ConflatingNewsAgency agency = new ConflatingNewsAgency(scheduler, 1);
+            for (int i = 0; i < n; i++) {
+                agency.addObserver(new SilentChannel());
+            }
+            return () -> agency.setNews(NEWS);
+        });
+        subjects.put("NewsAgencyV1", n -> {
+            NewsAgencyV1 agency = new NewsAgencyV1();
+            for (int i = 0; i < n; i++) {
+                agency.addObserver(new SilentChannelV1());
+            }
+            return () -> agency.setNews(NEWS);
+        });
+        subjects.put("IphoneObservable", n -> {
+            IphoneObservable iphone = new IphoneObservable();
+            for (int i = 0; i < n; i++) {
+                iphone.add(new SilentStockAlert());
+            }
+            // Restock from zero (fires the fan-out), then sell it again so the next publish fires too
+            return () -> {
+                iphone.setStockCount(1);
+                iphone.setStockCount(-1);
+            };
+        });
+        subjects.put("Iphone17Observable", n -> {
+            Iphone17Observable iphone17 = new Iphone17Observable(0);
+            for (int i = 0; i < n; i++) {
+                iphone17.addToWaitList(new SilentStockAlertV2());
+            }
+            return () -> {
+                iphone17.updateStock(1, StockType.ADD);
+                iphone17.updateStock(1, StockType.SUBTRACT);
+            };
+        });
+
+        ObserverBenchmarkHarness.printLatencyHeader();
+        for (Map.Entry<String, IntFunction<Runnable>> entry : subjects.entrySet()) {
+            for (int subscribers : ObserverBenchmarkHarness.SUBSCRIBER_COUNTS) {
+                Runnable publish = entry.getValue().apply(subscribers);
+                ObserverBenchmarkHarness.LatencyResult result = ObserverBenchmarkHarness.measureLatency(
+                        publish, ObserverBenchmarkHarness.iterationsFor(subscribers));
+                ObserverBenchmarkHarness.printLatencyRow(entry.getKey(), subscribers, result);
+            }
+        }
+        scheduler.shutdownNow();
+    }
+}
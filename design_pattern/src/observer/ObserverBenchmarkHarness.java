@@ -0,0 +1,130 @@
+package observer;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/*
+Small measurement toolkit shared by the observer benchmarks (ObserverBenchmark in this package and
+ObserverChannelBenchmark in revision_1). It is public only so the revision_1 package can reuse it.
+
+The project has no build tool, so there is no JMH on the classpath. Each measurement warms up first, but
+numbers are from a single JVM and a single run - compare variants against each other, not across machines.
+*/
+public final class ObserverBenchmarkHarness {
+    public static final int[] SUBSCRIBER_COUNTS = {1, 100, 10_000, 100_000};
+    public static final int[] PUBLISHER_THREADS = {1, 8, 64};
+
+    // Roughly the same number of observer calls per measurement, whatever the fan-out
+    private static final long UPDATES_PER_MEASUREMENT = 2_000_000L;
+
+    private ObserverBenchmarkHarness() {
+    }
+
+    public static final class LatencyResult {
+        public final long p50;
+        public final long p99;
+        public final long p999;
+        public final long max;
+        public final double bytesPerPublish;
+
+        LatencyResult(long[] sortedNanos, double bytesPerPublish) {
+            this.p50 = percentile(sortedNanos, 50.0);
+            this.p99 = percentile(sortedNanos, 99.0);
+            this.p999 = percentile(sortedNanos, 99.9);
+            this.max = sortedNanos[sortedNanos.length - 1];
+            this.bytesPerPublish = bytesPerPublish;
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+
+    public static int iterationsFor(int subscribers) {
+        return (int) Math.max(50, UPDATES_PER_MEASUREMENT / Math.max(1, subscribers));
+    }
+
+    // Per-publish latency on the calling thread plus bytes allocated per publish
+    public static LatencyResult measureLatency(Runnable publish, int iterations) {
+        for (int i = 0; i < iterations; i++) {
+            publish.run(); // Warm-up
+        }
+        long[] samples = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            publish.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return new LatencyResult(samples, allocatedBytesPerOp(publish, iterations));
+    }
+
+    // Publishes per second with 'threads' publishers running 'publishesPerThread' each
+    public static double measureThroughput(Runnable publish, int threads, int publishesPerThread)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < publishesPerThread; i++) {
+                        publish.run();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return (double) threads * publishesPerThread / elapsed * 1_000_000_000L;
+    }
+
+    // Uses the HotSpot per-thread allocation counter, -1 if the JVM does not provide it
+    public static double allocatedBytesPerOp(Runnable op, int iterations) {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) bean;
+        long threadId = Thread.currentThread().getId();
+        long before = hotspot.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            op.run();
+        }
+        return (double) (hotspot.getThreadAllocatedBytes(threadId) - before) / iterations;
+    }
+
+    public static void printLatencyHeader() {
+        System.out.printf("%-24s %11s %10s %10s %10s %12s %14s%n",
+                "Subject", "Subscribers", "p50 ns", "p99 ns", "p99.9 ns", "max ns", "bytes/publish");
+    }
+
+    public static void printLatencyRow(String subject, int subscribers, LatencyResult result) {
+        System.out.printf("%-24s %,11d %,10d %,10d %,10d %,12d %14.1f%n", subject, subscribers,
+                result.p50, result.p99, result.p999, result.max, result.bytesPerPublish);
+    }
+
+    public static void printThroughputHeader() {
+        System.out.printf("%-24s %11s %8s %16s%n", "Subject", "Subscribers", "Threads", "publishes/sec");
+    }
+
+    public static void printThroughputRow(String subject, int subscribers, int threads, double throughput) {
+        System.out.printf("%-24s %,11d %8d %,16.0f%n", subject, subscribers, threads, throughput);
+    }
+}
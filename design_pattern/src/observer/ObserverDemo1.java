@@ -2,8 +2,7 @@
 
 package observer;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.time.Duration;
 
 // Observer interface with the update method
 interface Channel {
@@ -14,26 +13,60 @@ interface Channel {
 // Subject class that manages and notifies observers
 class NewsAgency {
     private String news;  // State that observers are interested in
-    private List<Channel> channels = new ArrayList<>();  // List of observers
+    private SubscriptionRegistry<Channel> channels = new SubscriptionRegistry<>();  // Observers, O(1) add/remove
+    private volatile DispatchMetrics metrics;  // null = not instrumented
 
     // Method to add an observer
     public void addObserver(Channel channel) {
-        this.channels.add(channel);
+        this.channels.subscribe(channel);
     }
 
     // Method to remove an observer
     public void removeObserver(Channel channel) {
-        this.channels.remove(channel);
+        this.channels.unsubscribe(channel);
+    }
+
+    // Subscription that does not keep the channel alive
+    public Subscription subscribeWeakly(Channel channel) {
+        return this.channels.subscribeWeakly(channel);
+    }
+
+    // Subscription that ends by itself after the given time-to-live
+    public Subscription subscribeFor(Channel channel, Duration ttl) {
+        return this.channels.subscribeFor(channel, ttl);
     }
 
     // Method to update the state and notify observers
     public void setNews(String news) {
         this.news = news;  // Update the state
+        DispatchMetrics metrics = this.metrics;
+        int fanOut = 0;
         // Notify all registered observers about the state change
         for (Channel channel : this.channels) {
+            long start = metrics == null ? 0 : System.nanoTime();
             channel.update(this.news);  // Pass the new state to observers
+            if (metrics != null) {
+                metrics.recordDelivery(channel, System.nanoTime() - start);
+            }
+            fanOut++;
+        }
+        if (metrics != null) {
+            metrics.recordPublish(fanOut);
         }
     }
+
+    public void setMetrics(DispatchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public DispatchMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Number of observers a single setNews fans out to
+    public int getChannelCount() {
+        return this.channels.size();
+    }
 }
 
 // Concrete observer class that reacts to state changes in the subject
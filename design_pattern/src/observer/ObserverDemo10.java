@@ -0,0 +1,70 @@
+// extension of ObserverDemo4 - cheap alerts first, slow alerts on a throttled background lane
+package observer;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+public class ObserverDemo10 {
+    // Silent stand-in that costs what it declares
+    static class SimulatedAlert implements NotificationAlertObserverV2 {
+        private final DispatchPriority priority;
+        private final long costMicros;
+
+        SimulatedAlert(DispatchPriority priority, long costMicros) {
+            this.priority = priority;
+            this.costMicros = costMicros;
+        }
+
+        @Override
+        public void update(StockObservableV2 stockObservableV2) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(costMicros));
+        }
+
+        @Override
+        public DispatchPriority priority() {
+            return priority;
+        }
+
+        @Override
+        public long expectedCostMicros() {
+            return costMicros;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        ExecutorService backgroundLane = Executors.newFixedThreadPool(8);
+        PrioritizedDispatcher dispatcher = new PrioritizedDispatcher(backgroundLane, 8, 100);
+
+        Iphone17Observable iphone17 = new Iphone17Observable(0);
+        iphone17.setPrioritizedDispatcher(dispatcher);
+
+        // Real observers still print, and the AppAlert goes out before the slower ones
+        iphone17.addToWaitList(new SMS("9876543210"));
+        iphone17.addToWaitList(new EmailAlert("user1@gmail.com"));
+        iphone17.addToWaitList(new AppAlert("user_2"));
+
+        // Insertion order puts the slow SMS gateway first, as in production
+        for (int i = 0; i < 200; i++) {
+            iphone17.addToWaitList(new SimulatedAlert(DispatchPriority.LOW, 20_000));
+            iphone17.addToWaitList(new SimulatedAlert(DispatchPriority.NORMAL, 2_000));
+            iphone17.addToWaitList(new SimulatedAlert(DispatchPriority.HIGH, 50));
+        }
+
+        iphone17.updateStock(5, StockType.ADD);
+        backgroundLane.shutdown();
+        backgroundLane.awaitTermination(1, TimeUnit.MINUTES);
+
+        System.out.println("Fast lane       : " + dispatcher.getFastLaneLatency());
+        System.out.println("Background lane : " + dispatcher.getBackgroundLaneLatency());
+    }
+}
+
+/* OUTPUT (1 CPU; the real observers print first, AppAlert before the background lane)
+Iphone-17 is back in STOCK! AppAlert Notification sent to user_2
+Iphone-17 is back in STOCK! Email Notification sent to user1@gmail.com
+Iphone-17 is back in STOCK! SMS Notification sent to 9876543210
+Fast lane       : count=201 p50=50331µs p99=62861µs max=62861µs
+Background lane : count=402 p50=127926µs p99=632929µs max=632929µs
+*/
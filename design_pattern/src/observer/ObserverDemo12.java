@@ -0,0 +1,86 @@
+// extension of ObserverDemo1 - reading dispatch metrics from a subject
+package observer;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+public class ObserverDemo12 {
+    // Takes about 200µs per headline, like a channel that renders a ticker
+    static class SlowChannel implements Channel {
+        @Override
+        public void update(Object o) {
+            LockSupport.parkNanos(200_000);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        NewsAgency agency = new NewsAgency();
+        DispatchMetrics metrics = new DispatchMetrics("NewsAgency");
+        agency.setMetrics(metrics);
+        agency.addObserver(new AajTakNews());
+        agency.addObserver(new NDTVNews());
+        agency.addObserver(new SlowChannel());
+        for (int i = 0; i < 200; i++) {
+            agency.setNews("Headline #" + i);
+        }
+        System.out.println(metrics.snapshot());
+
+        // Conflated headlines show up as drops, a pending headline as queue depth
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        ConflatingNewsAgency conflating = new ConflatingNewsAgency(scheduler, 5);
+        DispatchMetrics conflatingMetrics = new DispatchMetrics("ConflatingNewsAgency");
+        conflating.setMetrics(conflatingMetrics);
+        conflating.addObserver(new BBCNews());
+        for (int i = 0; i < 1_000; i++) {
+            conflating.setNews("Tick #" + i);
+        }
+        System.out.println(conflatingMetrics.snapshot());
+        Thread.sleep(50);
+        scheduler.shutdown();
+        scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        System.out.println(conflatingMetrics.snapshot());
+
+        System.out.printf("%nrecordDelivery(): %.1f ns, System.nanoTime(): %.1f ns (a timed delivery makes two calls)%n",
+                recordingCostNanos(), nanoTimeCostNanos());
+    }
+
+    private static double recordingCostNanos() {
+        DispatchMetrics metrics = new DispatchMetrics("Overhead");
+        Channel channel = new AajTakNews();
+        int iterations = 20_000_000;
+        for (int i = 0; i < iterations; i++) {
+            metrics.recordDelivery(channel, i & 1023); // Warm-up
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            metrics.recordDelivery(channel, i & 1023);
+        }
+        return (double) (System.nanoTime() - start) / iterations;
+    }
+
+    private static double nanoTimeCostNanos() {
+        int iterations = 20_000_000;
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += System.nanoTime();
+        }
+        double cost = (double) (System.nanoTime() - start) / iterations;
+        return sink == 42 ? -1 : cost; // Keeps the loop from being optimized away
+    }
+}
+
+/*
+OUTPUT (1-CPU VM, latencies vary between runs):
+NewsAgency: publishes=200 (1206/s) fanOut avg=3.0 max=3 deliveries=600 drops=0 queueDepth=0
+  AajTakNews: deliveries=200 p50=3263ns p99=1146879ns max=2900µs
+  NDTVNews: deliveries=200 p50=2047ns p99=442367ns max=3728µs
+  SlowChannel: deliveries=200 p50=278527ns p99=2555903ns max=6828µs
+ConflatingNewsAgency: publishes=0 (0/s) fanOut avg=0.0 max=0 deliveries=0 drops=999 queueDepth=1
+ConflatingNewsAgency: publishes=1 (19/s) fanOut avg=1.0 max=1 deliveries=1 drops=999 queueDepth=0
+  BBCNews: deliveries=1 p50=306051ns p99=306051ns max=306µs
+
+recordDelivery(): 31.7 ns, System.nanoTime(): 50.1 ns (a timed delivery makes two calls)
+*/
@@ -0,0 +1,133 @@
+// extension of ObserverDemo2 - subscribing to topics and topic wildcards instead of a whole agency
+package observer;
+
+import java.util.Random;
+import java.util.function.Consumer;
+
+/*
+NewsAgencyV1 that also routes headlines by topic. Channels subscribe to patterns such as "news/india/*" or
+"stock/#", and publish() only reaches the channels whose pattern matches the headline's topic. Channels added
+with the plain addObserver() still get every setNews(), as before.
+*/
+class TopicNewsAgency extends NewsAgencyV1 {
+    private final TopicTrie<ChannelV1> subscriptions = new TopicTrie<>();
+
+    public boolean subscribe(String pattern, ChannelV1 channel) {
+        return subscriptions.subscribe(pattern, channel);
+    }
+
+    public boolean unsubscribe(String pattern, ChannelV1 channel) {
+        return subscriptions.unsubscribe(pattern, channel);
+    }
+
+    public void publish(String topic, String news) {
+        this.news = news;
+        subscriptions.match(topic, channel -> channel.updateNews(news, this));
+    }
+
+    public int getSubscriptionCount() {
+        return subscriptions.getSubscriptionCount();
+    }
+}
+
+public class ObserverDemo13 {
+    // Counts instead of storing, so the benchmark measures routing
+    static class CountingChannel implements ChannelV1 {
+        long received;
+
+        @Override
+        public void updateNews(String news, NewsAgencyV1 newsAgencyV1) {
+            received++;
+        }
+    }
+
+    static class Counter implements Consumer<Object> {
+        long matches;
+
+        @Override
+        public void accept(Object subscriber) {
+            matches++;
+        }
+    }
+
+    public static void main(String[] args) {
+        TopicNewsAgency pti = new TopicNewsAgency();
+        AajTak aajTak = new AajTak();
+        NDTV ndtv = new NDTV();
+        Republic republic = new Republic();
+
+        pti.subscribe("news/india/#", aajTak);     // Everything about India, at any depth
+        pti.subscribe("news/*/sports", ndtv);      // Sports from every country
+        pti.subscribe("stock/#", republic);        // Markets only
+
+        pti.publish("news/india/sports", "India won the 1st test match against England");
+        pti.publish("news/usa/sports", "USA qualifies for the World Cup");
+        pti.publish("news/india/politics/delhi", "Delhi assembly session begins");
+        pti.publish("stock/iphone/17", "Iphone-17 is back in stock");
+
+        System.out.println("AajTak News: " + aajTak.allNews);
+        System.out.println("NDTV News: " + ndtv.allNews);
+        System.out.println("Republic News: " + republic.allNews);
+        System.out.println();
+
+        runMatchBenchmark();
+    }
+
+    // Same probe topics against a small and a large trie: match time follows topic depth, not trie size
+    private static void runMatchBenchmark() {
+        System.out.printf("%-10s %14s %12s %16s %12s%n", "Topics", "Subscriptions", "Trie nodes", "matches/publish",
+                "ns/publish");
+        for (int regions : new int[]{5, 1_000}) {
+            TopicTrie<CountingChannel> trie = new TopicTrie<>();
+            CountingChannel[] pool = new CountingChannel[1_000];
+            for (int i = 0; i < pool.length; i++) {
+                pool[i] = new CountingChannel();
+            }
+            Random random = new Random(42);
+            int cities = 200;
+            for (int r = 0; r < regions; r++) {
+                for (int c = 0; c < cities; c++) {
+                    String topic = "news/region" + r + "/city" + c;
+                    for (int s = 0; s < 10; s++) {
+                        trie.subscribe(topic, pool[random.nextInt(pool.length)]);
+                    }
+                }
+                for (int s = 0; s < 5; s++) {
+                    trie.subscribe("news/region" + r + "/*", pool[random.nextInt(pool.length)]);
+                }
+            }
+            trie.subscribe("news/#", pool[0]);
+            trie.subscribe("news/*/city7", pool[1]);
+
+            // Probe topics exist in both tries
+            String[] probes = new String[4_096];
+            for (int i = 0; i < probes.length; i++) {
+                probes[i] = "news/region" + random.nextInt(5) + "/city" + random.nextInt(cities);
+            }
+            Counter counter = new Counter();
+            int iterations = 5_000_000;
+            for (int i = 0; i < iterations; i++) {
+                trie.match(probes[i & (probes.length - 1)], counter); // Warm-up
+            }
+            counter.matches = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                trie.match(probes[i & (probes.length - 1)], counter);
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%,-10d %,14d %,12d %16.1f %12.1f%n", regions * cities, trie.getSubscriptionCount(),
+                    trie.getNodeCount(), (double) counter.matches / iterations, (double) elapsed / iterations);
+        }
+    }
+}
+
+/*
+OUTPUT (agency hash codes differ per run; ns/publish includes calling the ~16 matching subscribers):
+AajTak News: {observer.TopicNewsAgency@3a71f4dd=[India won the 1st test match against England, Delhi assembly session begins]}
+NDTV News: {observer.TopicNewsAgency@3a71f4dd=[India won the 1st test match against England, USA qualifies for the World Cup]}
+Republic News: {observer.TopicNewsAgency@3a71f4dd=[Iphone-17 is back in stock]}
+
+Topics      Subscriptions   Trie nodes  matches/publish   ns/publish
+1,000               9,987        1,015             16.0        295.5
+200,000         1,995,924      202,005             16.0        434.2
+*/
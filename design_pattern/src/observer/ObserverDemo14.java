@@ -0,0 +1,374 @@
+// extension of ObserverDemo1 - feeding one NewsAgency to other JVMs on the same host
+package observer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/*
+Publishing side of the bridge. It is an ordinary Channel on the NewsAgency, so the agency does not know about
+other processes. Each headline is encoded once into a frame of [int length][UTF-8 bytes], and a writer thread
+packs the queued frames into batches of up to 64 KB. Every batch is written unchanged to each connected
+worker over a Unix domain socket, so adding a worker process costs one write() per batch, not one
+serialization per headline.
+
+The outbox is bounded: if the workers fall behind, update() blocks the publisher instead of growing the heap.
+Once the server is closed, update() drops the headline instead, since nothing drains the outbox any more.
+A worker whose socket fails is dropped.
+
+All workers share the one writer thread and are written to in turn with blocking writes, so a worker that
+stops reading stalls delivery to the others too once its socket buffer fills. That is fine for worker
+processes on the same host that read as fast as they decode; slow or remote consumers would need a queue
+and writer per worker.
+*/
+class NewsBridgeServer implements Channel, Closeable {
+    private static final int MAX_BATCH_BYTES = 64 * 1024;
+    private static final int OUTBOX_CAPACITY = 65_536;
+
+    private final Path socketPath;
+    private final ServerSocketChannel server;
+    private final List<SocketChannel> workers = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<byte[]> outbox = new ArrayBlockingQueue<>(OUTBOX_CAPACITY);
+    private final Thread acceptor;
+    private final Thread writer;
+    private final AtomicLong framesSent = new AtomicLong();
+    private final AtomicLong batchesSent = new AtomicLong();
+    private final AtomicLong framesDropped = new AtomicLong();
+    private volatile boolean closed;
+
+    public NewsBridgeServer(Path socketPath) throws IOException {
+        this.socketPath = socketPath;
+        Files.deleteIfExists(socketPath);
+        this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        this.server.bind(UnixDomainSocketAddress.of(socketPath));
+        this.acceptor = new Thread(this::acceptLoop, "news-bridge-acceptor");
+        this.writer = new Thread(this::writeLoop, "news-bridge-writer");
+        this.acceptor.setDaemon(true);
+        this.acceptor.start();
+        this.writer.start();
+    }
+
+    @Override
+    public void update(Object news) {
+        byte[] frame = encode((String) news);
+        try {
+            // Waits in short steps rather than put(), so a publisher blocked on a full outbox notices close()
+            while (!closed) {
+                if (outbox.offer(frame, 50, TimeUnit.MILLISECONDS)) {
+                    // close() may have let the writer drain and exit between the check and the offer. If the frame
+                    // is still queued then, nothing will send it, so take it back and count it as dropped.
+                    if (closed && outbox.remove(frame)) {
+                        break;
+                    }
+                    return;
+                }
+            }
+            framesDropped.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static byte[] encode(String news) {
+        byte[] text = news.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(Integer.BYTES + text.length).putInt(text.length).put(text).array();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                workers.add(server.accept());
+            } catch (IOException e) {
+                return;  // Server socket closed
+            }
+        }
+    }
+
+    private void writeLoop() {
+        ByteBuffer batch = ByteBuffer.allocateDirect(MAX_BATCH_BYTES);
+        try {
+            while (!closed || !outbox.isEmpty()) {
+                byte[] first = outbox.poll(50, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                if (first.length > batch.capacity()) {
+                    send(ByteBuffer.wrap(first), 1);  // Oversized headline goes out on its own
+                    continue;
+                }
+                batch.clear();
+                batch.put(first);
+                int frames = 1;
+                // Take along whatever queued up meanwhile - the writer is the only consumer, so peek then poll is safe
+                byte[] next;
+                while ((next = outbox.peek()) != null && next.length <= batch.remaining()) {
+                    batch.put(outbox.poll());
+                    frames++;
+                }
+                batch.flip();
+                send(batch, frames);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Blocking writes, one worker after the other: a worker that stops reading holds up the rest
+    private void send(ByteBuffer batch, int frames) {
+        for (SocketChannel worker : workers) {
+            ByteBuffer view = batch.duplicate();  // Same bytes, own position per worker
+            try {
+                while (view.hasRemaining()) {
+                    worker.write(view);
+                }
+            } catch (IOException e) {
+                workers.remove(worker);
+                closeQuietly(worker);
+            }
+        }
+        framesSent.addAndGet(frames);
+        batchesSent.incrementAndGet();
+    }
+
+    public boolean awaitWorkers(int count, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (workers.size() < count) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    public long getFramesSent() {
+        return framesSent.get();
+    }
+
+    public long getBatchesSent() {
+        return batchesSent.get();
+    }
+
+    // Headlines published after close(), which never reach a worker
+    public long getFramesDropped() {
+        return framesDropped.get();
+    }
+
+    // Flushes the outbox, then closes every connection so the workers see end-of-stream
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        server.close();
+        for (SocketChannel worker : workers) {
+            closeQuietly(worker);
+        }
+        Files.deleteIfExists(socketPath);
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // Already gone
+        }
+    }
+}
+
+/*
+Receiving side, one per worker process. A single reader thread decodes each headline once and publishes it
+on a local NewsAgency, which does the fan-out to the channels in this process. That reader is the only
+thread publishing on the local agency, so the agency needs no locking.
+*/
+class NewsBridgeClient implements Closeable {
+    private final SocketChannel socket;
+    private final NewsAgency localAgency;
+    private final Thread reader;
+    private long received;  // Written by the reader thread only, read after join()
+
+    public NewsBridgeClient(Path socketPath, NewsAgency localAgency) throws IOException {
+        this.socket = SocketChannel.open(UnixDomainSocketAddress.of(socketPath));
+        this.localAgency = localAgency;
+        this.reader = new Thread(this::readLoop, "news-bridge-reader");
+        this.reader.start();
+    }
+
+    private void readLoop() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        byte[] text = new byte[1024];
+        try {
+            while (socket.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.remaining() >= Integer.BYTES) {
+                    int length = buffer.getInt(buffer.position());
+                    if (buffer.remaining() < Integer.BYTES + length) {
+                        break;  // Frame continues in the next read
+                    }
+                    buffer.position(buffer.position() + Integer.BYTES);
+                    if (text.length < length) {
+                        text = new byte[Math.max(length, text.length * 2)];
+                    }
+                    buffer.get(text, 0, length);
+                    localAgency.setNews(new String(text, 0, length, StandardCharsets.UTF_8));
+                    received++;
+                }
+                buffer.compact();
+                if (!buffer.hasRemaining()) {
+                    buffer = grow(buffer);  // A single frame is larger than the buffer
+                }
+            }
+            if (buffer.position() > 0) {
+                System.err.println("News bridge connection lost: stream ended inside a frame, "
+                        + buffer.position() + " byte(s) discarded");
+            }
+        } catch (IOException e) {
+            System.err.println("News bridge connection lost: " + e.getMessage());
+        }
+    }
+
+    private static ByteBuffer grow(ByteBuffer full) {
+        full.flip();
+        return ByteBuffer.allocateDirect(full.capacity() * 2).put(full);
+    }
+
+    // Blocks until the publisher closes the bridge
+    public long awaitEnd() throws InterruptedException {
+        reader.join();
+        return received;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
+
+public class ObserverDemo14 {
+    private static final int WORKERS = 2;
+    private static final int BURST = 500_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("worker")) {
+            runWorker(Paths.get(args[1]), args[2], args.length > 3 && args[3].equals("quiet"));
+            return;
+        }
+        Path directory = Files.createTempDirectory("news-bridge");
+        Path socketPath = directory.resolve("news.sock");
+        try {
+            // Session 1: a few headlines, every worker prints what its local channels receive
+            runSession(socketPath, false, agency -> {
+                agency.setNews("First confirmed case of COVID-19 infection in India");
+                agency.setNews("India won the 1st test match against England");
+            });
+
+            // Session 2: a burst, workers only count, the publisher reports batching
+            runSession(socketPath, true, agency -> {
+                for (int i = 0; i < BURST; i++) {
+                    agency.setNews("Tick #" + i);
+                }
+            });
+        } finally {
+            Files.deleteIfExists(socketPath);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static void runSession(Path socketPath, boolean quiet, Consumer<NewsAgency> publish) throws Exception {
+        NewsAgency agency = new NewsAgency();
+        NewsBridgeServer bridge = new NewsBridgeServer(socketPath);
+        agency.addObserver(bridge);
+
+        List<Process> workers = new ArrayList<>();
+        for (int i = 1; i <= WORKERS; i++) {
+            workers.add(startWorker(socketPath, "worker-" + i, quiet));
+        }
+        if (!bridge.awaitWorkers(WORKERS, 10_000)) {
+            throw new IllegalStateException("Workers did not connect");
+        }
+
+        long start = System.nanoTime();
+        publish.accept(agency);
+        bridge.close();  // Returns once every batch is written to the sockets
+        long elapsed = System.nanoTime() - start;
+        for (Process worker : workers) {
+            worker.waitFor();
+        }
+        if (quiet) {
+            System.out.printf("Publisher: %,d headlines to %d processes in %d ms (%,.0f headlines/s), "
+                            + "%,d batches, %.0f headlines per batch%n",
+                    bridge.getFramesSent(), WORKERS, TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    bridge.getFramesSent() / (elapsed / 1e9), bridge.getBatchesSent(),
+                    (double) bridge.getFramesSent() / bridge.getBatchesSent());
+        }
+    }
+
+    private static Process startWorker(Path socketPath, String name, boolean quiet) throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = new ArrayList<>(List.of(java, "-cp", System.getProperty("java.class.path"),
+                ObserverDemo14.class.getName(), "worker", socketPath.toString(), name));
+        if (quiet) {
+            command.add("quiet");
+        }
+        return new ProcessBuilder(command).inheritIO().start();
+    }
+
+    // Runs in the worker JVM: three local channels behind one bridge connection
+    private static void runWorker(Path socketPath, String name, boolean quiet) throws Exception {
+        NewsAgency localAgency = new NewsAgency();
+        long[] localDeliveries = new long[1];
+        for (String channel : new String[]{"AajTak", "NDTV", "BBC"}) {
+            localAgency.addObserver(news -> {
+                localDeliveries[0]++;
+                if (!quiet) {
+                    System.out.println(name + " " + channel + ": " + news);
+                }
+            });
+        }
+        try (NewsBridgeClient client = new NewsBridgeClient(socketPath, localAgency)) {
+            long received = client.awaitEnd();
+            if (quiet) {
+                System.out.printf("%s: %,d headlines over the socket, %,d local deliveries%n", name, received,
+                        localDeliveries[0]);
+            }
+        }
+    }
+}
+
+/*
+OUTPUT (worker lines interleave differently per run, throughput is from a 1-CPU machine running all 3 JVMs):
+worker-2 AajTak: First confirmed case of COVID-19 infection in India
+worker-2 NDTV: First confirmed case of COVID-19 infection in India
+worker-2 BBC: First confirmed case of COVID-19 infection in India
+worker-2 AajTak: India won the 1st test match against England
+worker-2 NDTV: India won the 1st test match against England
+worker-2 BBC: India won the 1st test match against England
+worker-1 AajTak: First confirmed case of COVID-19 infection in India
+worker-1 NDTV: First confirmed case of COVID-19 infection in India
+worker-1 BBC: First confirmed case of COVID-19 infection in India
+worker-1 AajTak: India won the 1st test match against England
+worker-1 NDTV: India won the 1st test match against England
+worker-1 BBC: India won the 1st test match against England
+worker-2: 500,000 headlines over the socket, 1,500,000 local deliveries
+worker-1: 500,000 headlines over the socket, 1,500,000 local deliveries
+Publisher: 500,000 headlines to 2 processes in 1355 ms (368,826 headlines/s), 154 batches, 3247 headlines per batch
+*/
@@ -2,8 +2,10 @@
 package observer;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 interface Agency {
     void addObserver(ChannelV1 channel);
@@ -12,10 +14,11 @@ interface Agency {
 
 class NewsAgencyV1 implements Agency {
     String news;
-    List<ChannelV1> channelList;
+    SubscriberSet<ChannelV1> channelList;
+    private volatile DispatchMetrics metrics;  // null = not instrumented
 
     public NewsAgencyV1() {
-        channelList = new ArrayList<>();
+        channelList = new SubscriberSet<>();
     }
 
     @Override
@@ -34,17 +37,33 @@ class NewsAgencyV1 implements Agency {
     }
 
     private void notifyChannels() {
+        DispatchMetrics metrics = this.metrics;
+        int fanOut = 0;
         for (ChannelV1 curr : this.channelList) {
+            long start = metrics == null ? 0 : System.nanoTime();
             curr.updateNews(news, this);
+            if (metrics != null) {
+                metrics.recordDelivery(curr, System.nanoTime() - start);
+            }
+            fanOut++;
         }
+        if (metrics != null) {
+            metrics.recordPublish(fanOut);
+        }
+    }
+
+    public void setMetrics(DispatchMetrics metrics) {
+        this.metrics = metrics;
     }
 
     public String getNews() {
         return news;
     }
 
+    // A snapshot, not the live list it used to be: adding to or removing from it does not change the
+    // subscriptions, use addObserver() and removeObserver() for that
     public List<ChannelV1> getChannelList() {
-        return channelList;
+        return channelList.toList();
     }
 }
 
@@ -53,43 +72,122 @@ interface ChannelV1 {
     void updateNews(String news, NewsAgencyV1 newsAgencyV1);
 }
 
+/*
+Bounded headline history per agency, used by every ChannelV1. Each agency gets a fixed-size ring buffer, so
+memory is capped at 'capacity' headlines per agency and recording a headline never allocates once the ring
+exists. latest(agency, n) is O(n).
+*/
+class NewsHistory {
+    static final int DEFAULT_CAPACITY = 100;
+
+    private static final class HeadlineRing {
+        private final String[] headlines;
+        private long recorded; // Total ever recorded, the next write goes to recorded % length
+
+        HeadlineRing(int capacity) {
+            this.headlines = new String[capacity];
+        }
+
+        void add(String headline) {
+            headlines[(int) (recorded++ % headlines.length)] = headline;
+        }
+
+        int size() {
+            return (int) Math.min(recorded, headlines.length);
+        }
+
+        // The newest n headlines, oldest first
+        List<String> latest(int n) {
+            int count = Math.min(n, size());
+            List<String> result = new ArrayList<>(count);
+            for (long i = recorded - count; i < recorded; i++) {
+                result.add(headlines[(int) (i % headlines.length)]);
+            }
+            return result;
+        }
+    }
+
+    private final int capacity;
+    private final Map<NewsAgencyV1, HeadlineRing> rings = new HashMap<>();
+
+    public NewsHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public NewsHistory(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    public void record(NewsAgencyV1 agency, String news) {
+        // computeIfAbsent only builds a ring the first time an agency is seen
+        rings.computeIfAbsent(agency, a -> new HeadlineRing(capacity)).add(news);
+    }
+
+    public List<String> latest(NewsAgencyV1 agency, int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n must not be negative: " + n);
+        }
+        HeadlineRing ring = rings.get(agency);
+        return ring == null ? Collections.emptyList() : ring.latest(n);
+    }
+
+    public int size(NewsAgencyV1 agency) {
+        HeadlineRing ring = rings.get(agency);
+        return ring == null ? 0 : ring.size();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (Map.Entry<NewsAgencyV1, HeadlineRing> entry : rings.entrySet()) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(entry.getKey()).append('=').append(entry.getValue().latest(capacity));
+        }
+        return sb.append('}').toString();
+    }
+}
+
 class AajTak implements ChannelV1 {
-    HashMap<NewsAgencyV1, List<String>> allNews;
+    NewsHistory allNews;
 
     public AajTak() {
-        allNews = new HashMap<>();
+        allNews = new NewsHistory();
     }
 
     @Override
     public void updateNews(String news, NewsAgencyV1 newsAgencyV1) {
-        allNews.getOrDefault(newsAgencyV1, allNews.put(newsAgencyV1, new ArrayList<>())).add(news);
+        allNews.record(newsAgencyV1, news);
     }
 }
 
 class NDTV implements ChannelV1 {
-    HashMap<NewsAgencyV1, List<String>> allNews;
+    NewsHistory allNews;
 
     public NDTV() {
-        allNews = new HashMap<>();
+        allNews = new NewsHistory();
     }
 
     @Override
     public void updateNews(String news, NewsAgencyV1 newsAgencyV1) {
-        allNews.getOrDefault(newsAgencyV1, allNews.put(newsAgencyV1, new ArrayList<>())).add(news);
-
+        allNews.record(newsAgencyV1, news);
     }
 }
 
 class Republic implements ChannelV1 {
-    HashMap<NewsAgencyV1, List<String>> allNews;
+    NewsHistory allNews;
 
     public Republic() {
-        allNews = new HashMap<>();
+        allNews = new NewsHistory();
     }
 
     @Override
     public void updateNews(String news, NewsAgencyV1 newsAgencyV1) {
-        allNews.getOrDefault(newsAgencyV1, allNews.put(newsAgencyV1, new ArrayList<>())).add(news);
+        allNews.record(newsAgencyV1, news);
     }
 }
 
@@ -118,5 +216,7 @@ public class ObserverDemo2 {
         System.out.println("NDTV News: " + ndtv.allNews);
         System.out.println("Republic News: " + republic.allNews);
 
+        // Last N headlines from one agency, served straight from the ring buffer
+        System.out.println("AajTak latest from ANI: " + aajTak.allNews.latest(ANI, 1));
     }
 }
@@ -10,8 +10,9 @@ multiple observers are updated automatically when the subject's state changes.
 
 package observer;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 // The 'Observable' interface defines the methods to add, remove, and notify observers.
 interface StockObservable {
@@ -23,39 +24,84 @@ interface StockObservable {
 }
 
 // Concrete implementation of the 'Observable' interface.
+// Methods are synchronized because batched notifications run on the scheduler thread.
 class IphoneObservable implements StockObservable {
-    private List<NotificationAlertObserver> observerList = new ArrayList<>(); // List to hold observers
+    private SubscriberSet<NotificationAlertObserver> observerList = new SubscriberSet<>(); // Registered observers
     private int stockCount = 0; // Internal state of stock count
+    private final ScheduledExecutorService scheduler; // null = notify immediately on every 0 -> positive edge
+    private final long batchWindowMillis;
+    private boolean notificationPending;
+    private DispatchMetrics metrics; // null = not instrumented
+
+    public IphoneObservable() {
+        this(null, 0);
+    }
+
+    // Edge-triggered batching: all restocks within the window lead to one notification cycle
+    public IphoneObservable(ScheduledExecutorService scheduler, long batchWindowMillis) {
+        if (scheduler != null && batchWindowMillis <= 0) {
+            throw new IllegalArgumentException("batchWindowMillis must be positive: " + batchWindowMillis);
+        }
+        this.scheduler = scheduler;
+        this.batchWindowMillis = batchWindowMillis;
+    }
 
     @Override
-    public void add(NotificationAlertObserver observer) {
+    public synchronized void add(NotificationAlertObserver observer) {
         observerList.add(observer); // Add observer to the list
     }
 
     @Override
-    public void remove(NotificationAlertObserver observer) {
+    public synchronized void remove(NotificationAlertObserver observer) {
         observerList.remove(observer); // Remove observer from the list
     }
 
     @Override
-    public void notifySubscribers() {
+    public synchronized void notifySubscribers() {
         // Notify all registered observers about the state change
+        int fanOut = 0;
         for (NotificationAlertObserver observer : observerList) {
+            long start = metrics == null ? 0 : System.nanoTime();
             observer.update(); // Call the update method of each observer
+            if (metrics != null) {
+                metrics.recordDelivery(observer, System.nanoTime() - start);
+            }
+            fanOut++;
+        }
+        if (metrics != null) {
+            metrics.recordPublish(fanOut);
         }
     }
 
+    public synchronized void setMetrics(DispatchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     @Override
-    public void setStockCount(int newStockAdded) {
-        // Only notify observers if stock count changes from 0
-        if (stockCount == 0) {
-            notifySubscribers(); // Notify all observers when new stock is added
+    public synchronized void setStockCount(int newStockAdded) {
+        int previousStock = stockCount;
+        stockCount += newStockAdded; // Commit the new stock first, so observers read the real count
+        // Only notify observers when the stock goes from 0 to positive
+        if (previousStock == 0 && stockCount > 0) {
+            if (scheduler == null) {
+                notifySubscribers();
+            } else if (!notificationPending) {
+                notificationPending = true;
+                scheduler.schedule(this::flushBatchedNotification, batchWindowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private synchronized void flushBatchedNotification() {
+        notificationPending = false;
+        // The stock may have sold out again within the window - then there is nothing to announce
+        if (stockCount > 0) {
+            notifySubscribers();
         }
-        stockCount += newStockAdded; // Update the stock count
     }
 
     @Override
-    public int getStockCount() {
+    public synchronized int getStockCount() {
         return stockCount; // Return the current stock count
     }
 }
@@ -78,7 +124,7 @@ class EmailAlertObserverImpl implements NotificationAlertObserver {
     @Override
     public void update() {
         // Called when the observable's state changes
-        sendEmail(email, "iPhone 16 is back in stock! Hurry up!!!");
+        sendEmail(email, "iPhone 16 is back in stock! Only " + stockObservable.getStockCount() + " left, hurry up!!!");
     }
 
     private void sendEmail(String emailId, String message) {
@@ -99,7 +145,7 @@ class MobileSmsAlertObserverImpl implements NotificationAlertObserver {
     @Override
     public void update() {
         // Called when the observable's state changes
-        sendSms(mobileNumber, "iPhone 16 is back in stock! Hurry up!!!");
+        sendSms(mobileNumber, "iPhone 16 is back in stock! Only " + stockObservable.getStockCount() + " left, hurry up!!!");
     }
 
     private void sendSms(String mobileNumber, String message) {
@@ -109,7 +155,7 @@ class MobileSmsAlertObserverImpl implements NotificationAlertObserver {
 
 // Main class to demonstrate the Observer pattern in action
 public class ObserverDemo3 {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
         // Create an instance of the observable (iPhone stock)
         StockObservable iphoneStockObservable = new IphoneObservable();
 
@@ -124,11 +170,23 @@ public class ObserverDemo3 {
 
         // Update the stock, which will notify all registered observers
         iphoneStockObservable.setStockCount(10);
+
+        // Batched: a burst of restocks (and even a sell-out in between) within 100ms sends one alert
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        StockObservable batchedObservable = new IphoneObservable(scheduler, 100);
+        batchedObservable.add(new MobileSmsAlertObserverImpl("9123456780", batchedObservable));
+        batchedObservable.setStockCount(2);
+        batchedObservable.setStockCount(-2);
+        batchedObservable.setStockCount(5);
+        batchedObservable.setStockCount(3);
+        Thread.sleep(200);
+        scheduler.shutdown();
     }
 }
 
 /*
-Email sent to user1@xyz.com. Subject: iPhone 16 is back in stock! Hurry up!!!
-Email sent to user2@xyz.com. Subject: iPhone 16 is back in stock! Hurry up!!!
-Text SMS sent to 9876543210. Subject: iPhone 16 is back in stock! Hurry up!!!
+Email sent to user1@xyz.com. Subject: iPhone 16 is back in stock! Only 10 left, hurry up!!!
+Email sent to user2@xyz.com. Subject: iPhone 16 is back in stock! Only 10 left, hurry up!!!
+Text SMS sent to 9876543210. Subject: iPhone 16 is back in stock! Only 10 left, hurry up!!!
+Text SMS sent to 9123456780. Subject: iPhone 16 is back in stock! Only 8 left, hurry up!!!
 */
\ No newline at end of file
@@ -1,7 +1,9 @@
 package observer;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 enum StockType {
     ADD, SUBTRACT;
@@ -15,48 +17,128 @@ interface StockObservableV2 {
     String getProductName();
 }
 
+/*
+Thread-safe stock level that never goes below zero and reports the 0 -> positive edge exactly once per restock.
+
+Every change is a compare-and-set on one AtomicLong, so exactly one caller observes each transition, even with
+many warehouse threads adding and subtracting at once. A striped LongAdder would spread the writes better, but
+its sum() is not atomic with the updates, so it cannot tell which ADD turned an empty shelf into a stocked one.
+*/
+class StockCounter {
+    private final AtomicLong stock;
+    private final AtomicLong restocks = new AtomicLong();   // 0 -> positive transitions
+    private final AtomicLong depletions = new AtomicLong(); // positive -> 0 transitions
+
+    StockCounter(long initialStock) {
+        this.stock = new AtomicLong(Math.max(0, initialStock));
+    }
+
+    // Returns true if this call took the stock from 0 to positive
+    boolean add(long count) {
+        if (count <= 0) {
+            return false;
+        }
+        while (true) {
+            long previous = stock.get();
+            if (stock.compareAndSet(previous, previous + count)) {
+                if (previous == 0) {
+                    restocks.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        }
+    }
+
+    // Subtracts, clamping at zero like the original updateStock did
+    void subtract(long count) {
+        if (count <= 0) {
+            return;
+        }
+        while (true) {
+            long previous = stock.get();
+            long next = Math.max(0, previous - count);
+            if (stock.compareAndSet(previous, next)) {
+                if (previous > 0 && next == 0) {
+                    depletions.incrementAndGet();
+                }
+                return;
+            }
+        }
+    }
+
+    long get() {
+        return stock.get();
+    }
+
+    long getRestocks() {
+        return restocks.get();
+    }
+
+    long getDepletions() {
+        return depletions.get();
+    }
+}
+
 class Iphone17Observable implements  StockObservableV2 {
-    private List<NotificationAlertObserverV2> listOfNotifications;
-    private int currStock;
+    private SubscriptionRegistry<NotificationAlertObserverV2> listOfNotifications;
+    private final StockCounter currStock;
     public final String productName = "Iphone-17";
+    private volatile ParallelFanOut fanOut; // null = notify serially on the calling thread
+    private volatile ParallelFanOut.FanOutReport lastFanOutReport;
+    private volatile PrioritizedDispatcher prioritizedDispatcher; // Takes precedence over fanOut when set
+    private volatile DispatchMetrics metrics; // null = not instrumented
 
     public Iphone17Observable(int currSTock) {
-        this.currStock = currSTock;
-        listOfNotifications = new ArrayList<>();
+        this.currStock = new StockCounter(currSTock);
+        listOfNotifications = new SubscriptionRegistry<>();
     }
 
+    // The waitlist is guarded by 'this', stock updates are lock-free
     @Override
-    public void addToWaitList(NotificationAlertObserverV2 notificationAlertObserverV2) {
-        this.listOfNotifications.add(notificationAlertObserverV2);
+    public synchronized void addToWaitList(NotificationAlertObserverV2 notificationAlertObserverV2) {
+        this.listOfNotifications.subscribe(notificationAlertObserverV2);
+    }
+
+    // Waitlist entry that does not keep the observer alive
+    public synchronized Subscription addToWaitListWeakly(NotificationAlertObserverV2 notificationAlertObserverV2) {
+        return this.listOfNotifications.subscribeWeakly(notificationAlertObserverV2);
+    }
+
+    // Waitlist entry that expires by itself after the given time-to-live
+    public synchronized Subscription addToWaitListFor(NotificationAlertObserverV2 notificationAlertObserverV2, Duration ttl) {
+        return this.listOfNotifications.subscribeFor(notificationAlertObserverV2, ttl);
     }
 
     @Override
-    public void removeFromWaitList(NotificationAlertObserverV2 notificationAlertObserverV2) {
-        this.listOfNotifications.remove(notificationAlertObserverV2);
+    public synchronized void removeFromWaitList(NotificationAlertObserverV2 notificationAlertObserverV2) {
+        this.listOfNotifications.unsubscribe(notificationAlertObserverV2);
     }
 
     @Override
     public void updateStock(int count, StockType stockType) {
         switch (stockType) {
             case ADD -> {
-                int previousStock = this.currStock;
-                this.currStock += count;
-                if (previousStock == 0 && this.currStock > 0) {
+                // Only the thread whose ADD moved the stock off zero sends the alerts
+                if (this.currStock.add(count)) {
                     notifyUsersRegardingBackInStock();
                 }
             }
-            case SUBTRACT -> {
-                this.currStock -= count; 
-                if (this.currStock < 0) {
-                    this.currStock = 0;
-                }
-            }
+            case SUBTRACT -> this.currStock.subtract(count);
         }
     }
 
     @Override
     public int getStock() {
-        return this.currStock;
+        return (int) this.currStock.get();
+    }
+
+    public long getRestockCount() {
+        return this.currStock.getRestocks();
+    }
+
+    public long getDepletionCount() {
+        return this.currStock.getDepletions();
     }
 
     @Override
@@ -64,15 +146,69 @@ class Iphone17Observable implements  StockObservableV2 {
         return productName;
     }
 
+    // Deliver back-in-stock alerts through a parallel fan-out engine instead of one by one
+    public void setFanOut(ParallelFanOut fanOut) {
+        this.fanOut = fanOut;
+    }
+
+    public ParallelFanOut.FanOutReport getLastFanOutReport() {
+        return lastFanOutReport;
+    }
+
+    // Deliver cheap/high-priority alerts first on the calling thread and expensive ones on a background lane
+    public void setPrioritizedDispatcher(PrioritizedDispatcher prioritizedDispatcher) {
+        this.prioritizedDispatcher = prioritizedDispatcher;
+    }
+
+    public void setMetrics(DispatchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     private void notifyUsersRegardingBackInStock() {
-        for (NotificationAlertObserverV2 curr : this.listOfNotifications) {
+        List<NotificationAlertObserverV2> waitlist;
+        synchronized (this) {
+            waitlist = new ArrayList<>(this.listOfNotifications.size());
+            for (NotificationAlertObserverV2 curr : this.listOfNotifications) {
+                waitlist.add(curr);
+            }
+        }
+        // Observers run outside the monitor: an alert may leave or join the waitlist without deadlocking the
+        // publisher, and waitlist changes are not blocked for the whole fan-out
+        DispatchMetrics metrics = this.metrics;
+        if (metrics != null) {
+            metrics.recordPublish(waitlist.size());
+        }
+        PrioritizedDispatcher prioritizedDispatcher = this.prioritizedDispatcher;
+        if (prioritizedDispatcher != null) {
+            prioritizedDispatcher.dispatch(waitlist, this); // Per-delivery latency lives in the engines' own reports
+            return;
+        }
+        ParallelFanOut fanOut = this.fanOut;
+        if (fanOut != null) {
+            lastFanOutReport = fanOut.deliver(waitlist, this); // Partial, with the flag set, if interrupted
+            return;
+        }
+        for (NotificationAlertObserverV2 curr : waitlist) {
+            long start = metrics == null ? 0 : System.nanoTime();
             curr.update(this);
+            if (metrics != null) {
+                metrics.recordDelivery(curr, System.nanoTime() - start);
+            }
         }
     }
 }
 
 interface NotificationAlertObserverV2 {
     void update(StockObservableV2 stockObservableV2);
+
+    // Dispatch hints, used by PrioritizedDispatcher to pick a lane and an order
+    default DispatchPriority priority() {
+        return DispatchPriority.NORMAL;
+    }
+
+    default long expectedCostMicros() {
+        return 0;
+    }
 }
 
 class EmailAlert implements NotificationAlertObserverV2 {
@@ -86,6 +222,11 @@ class EmailAlert implements NotificationAlertObserverV2 {
     public void update(StockObservableV2 stockObservableV2) {
         System.out.println(stockObservableV2.getProductName() + " is back in STOCK! Email Notification sent to " + this.email);
     }
+
+    @Override
+    public long expectedCostMicros() {
+        return 5_000; // SMTP round trip
+    }
 }
 
 class AppAlert implements NotificationAlertObserverV2 {
@@ -99,6 +240,16 @@ class AppAlert implements NotificationAlertObserverV2 {
     public void update(StockObservableV2 stockObservableV2) {
         System.out.println(stockObservableV2.getProductName() + " is back in STOCK! AppAlert Notification sent to " + this.addID);
     }
+
+    @Override
+    public DispatchPriority priority() {
+        return DispatchPriority.HIGH; // Push notifications are cheap and latency-sensitive
+    }
+
+    @Override
+    public long expectedCostMicros() {
+        return 50;
+    }
 }
 
 class SMS implements NotificationAlertObserverV2 {
@@ -112,6 +263,16 @@ class SMS implements NotificationAlertObserverV2 {
     public void update(StockObservableV2 stockObservableV2) {
         System.out.println(stockObservableV2.getProductName() + " is back in STOCK! SMS Notification sent to " + this.mobileNo);
     }
+
+    @Override
+    public DispatchPriority priority() {
+        return DispatchPriority.LOW;
+    }
+
+    @Override
+    public long expectedCostMicros() {
+        return 50_000; // Slow SMS gateway
+    }
 }
 
 public class ObserverDemo4 {
@@ -0,0 +1,49 @@
+// extension of ObserverDemo1 - conflating bursty news into a single "latest value" delivery
+package observer;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class ObserverDemo5 {
+    public static void main(String[] args) throws InterruptedException {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        ConflatingNewsAgency agency = new ConflatingNewsAgency(scheduler, 50);
+
+        AajTakNews aajTakNews = new AajTakNews();
+        NDTVNews ndtvNews = new NDTVNews();
+        BBCNews bbcNews = new BBCNews();
+
+        agency.addObserver(aajTakNews);
+        agency.addObserver(ndtvNews);
+        agency.addObserver(bbcNews);
+
+        // A bursty feed - 1000 score updates in a tight loop
+        for (int run = 1; run <= 1000; run++) {
+            agency.setNews("India " + run + "/2 after 50 overs");
+        }
+
+        Thread.sleep(200);
+        scheduler.shutdown();
+        scheduler.awaitTermination(1, TimeUnit.SECONDS);
+
+        System.out.println(aajTakNews.getNews());
+        System.out.println(ndtvNews.getNews());
+        System.out.println(bbcNews.getNews());
+
+        System.out.println("Published: " + agency.getPublishedCount());
+        System.out.println("Delivered: " + agency.getDeliveredCount());
+        System.out.println("Suppressed: " + agency.getSuppressedCount()
+                + " (" + agency.getSuppressedChannelUpdates() + " channel updates saved)");
+    }
+}
+
+/*
+OUTPUT:
+India 1000/2 after 50 overs - AajTakNews
+India 1000/2 after 50 overs - NDTVNews
+India 1000/2 after 50 overs - BBCNews
+Published: 1000
+Delivered: 1
+Suppressed: 999 (2997 channel updates saved)
+*/
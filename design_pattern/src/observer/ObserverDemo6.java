@@ -0,0 +1,43 @@
+// extension of ObserverDemo4 - waitlist subscriptions that clean themselves up
+package observer;
+
+import java.time.Duration;
+
+public class ObserverDemo6 {
+    public static void main(String[] args) throws InterruptedException {
+        Iphone17Observable iphone17 = new Iphone17Observable(0);
+
+        // Weak subscription - the waitlist alone does not keep this observer alive
+        Subscription email = iphone17.addToWaitListWeakly(new EmailAlert("forgotten@gmail.com"));
+
+        // Normal subscription, kept until removed
+        NotificationAlertObserverV2 sms = new SMS("9876543210");
+        iphone17.addToWaitList(sms);
+
+        // Lease - only interested if the phone is back within 50ms
+        Subscription appLease = iphone17.addToWaitListFor(new AppAlert("user_2"), Duration.ofMillis(50));
+
+        // Explicit unsubscribe through the handle, no need to keep the observer around
+        Subscription backupEmail = iphone17.addToWaitListWeakly(new EmailAlert("backup@gmail.com"));
+        backupEmail.cancel();
+
+        // Nobody holds the EmailAlert any more, so the weak subscription lets it be collected. System.gc() is only a
+        // hint though: this is the one line of the output that depends on the JVM actually clearing it.
+        System.gc();
+        Thread.sleep(100);
+
+        System.out.println("Email subscription active: " + email.isActive());
+        System.out.println("App lease active: " + appLease.isActive());
+        System.out.println("Backup email subscription active: " + backupEmail.isActive());
+
+        // Only the SMS observer is still on the waitlist, dead entries are purged during this dispatch
+        iphone17.updateStock(5, StockType.ADD);
+    }
+}
+
+/* OUTPUT (if the JVM ignores System.gc(), the first line reads true and forgotten@gmail.com gets an email too)
+Email subscription active: false
+App lease active: false
+Backup email subscription active: false
+Iphone-17 is back in STOCK! SMS Notification sent to 9876543210
+*/
@@ -0,0 +1,65 @@
+// extension of ObserverDemo4 - delivering back-in-stock alerts to a huge waitlist in parallel
+package observer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+public class ObserverDemo7 {
+    // Stand-in for a channel that does I/O: ~50µs per notification, silent
+    static class SimulatedAlert implements NotificationAlertObserverV2 {
+        private final String channel;
+
+        SimulatedAlert(String channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void update(StockObservableV2 stockObservableV2) {
+            LockSupport.parkNanos(50_000);
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String[] channels = {"Email", "AppAlert", "SMS"};
+        List<NotificationAlertObserverV2> waitlist = new ArrayList<>();
+        for (int i = 0; i < 30_000; i++) {
+            waitlist.add(new SimulatedAlert(channels[i % channels.length]));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        ParallelFanOut fanOut = new ParallelFanOut(executor, 500, o -> ((SimulatedAlert) o).channel)
+                .limitChannel("SMS", 16); // The SMS gateway only accepts 16 concurrent requests
+
+        // Serial: what notifyUsersRegardingBackInStock() does without a fan-out engine
+        Iphone17Observable serial = new Iphone17Observable(0);
+        for (NotificationAlertObserverV2 observer : waitlist) {
+            serial.addToWaitList(observer);
+        }
+        long start = System.nanoTime();
+        serial.updateStock(10, StockType.ADD);
+        System.out.printf("Serial fan-out completed in %d ms%n", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        // Parallel
+        Iphone17Observable parallel = new Iphone17Observable(0);
+        parallel.setFanOut(fanOut);
+        for (NotificationAlertObserverV2 observer : waitlist) {
+            parallel.addToWaitList(observer);
+        }
+        parallel.updateStock(10, StockType.ADD);
+        System.out.print(parallel.getLastFanOutReport());
+
+        executor.shutdown();
+    }
+}
+
+/* OUTPUT (timings vary by machine)
+Serial fan-out completed in 3261 ms
+Fan-out completed in 396 ms
+  AppAlert     delivered=10000 failed=0 throughput=25,209/s
+  Email        delivered=10000 failed=0 throughput=25,209/s
+  SMS          delivered=10000 failed=0 throughput=25,209/s
+*/
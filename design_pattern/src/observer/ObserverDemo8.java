@@ -0,0 +1,148 @@
+// extension of ObserverDemo4 - many warehouse threads updating the same stock
+package observer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Stress check for Iphone17Observable's StockCounter. Each warehouse thread repeatedly receives one unit and
+sells it again, so:
+- no update may be lost: the final stock must be exactly 0, and every restock is matched by a depletion
+
+A second run checks the alerts against a count the test controls: in each round all threads add one unit at
+the same time and then all sell it again, so the stock leaves zero exactly once per round and there must be
+exactly one back-in-stock alert per round, whichever thread wins the race.
+
+The same workload runs against a plain int read-modify-write first (what updateStock used to do) to show how
+it breaks.
+*/
+public class ObserverDemo8 {
+    private static final int THREADS = 32;
+    private static final int ROUNDS_PER_THREAD = 100_000;
+    private static final int LOCKSTEP_ROUNDS = 2_000;
+
+    // The old Iphone17Observable.updateStock logic, kept here only to contrast with StockCounter
+    static class PlainIntStock {
+        private int currStock;
+        private final AtomicLong alerts = new AtomicLong();
+
+        void add(int count) {
+            int previousStock = currStock;
+            currStock += count;
+            if (previousStock == 0 && currStock > 0) {
+                alerts.incrementAndGet();
+            }
+        }
+
+        void subtract(int count) {
+            currStock -= count;
+            if (currStock < 0) {
+                currStock = 0;
+            }
+        }
+    }
+
+    static class CountingAlert implements NotificationAlertObserverV2 {
+        private final AtomicLong alerts = new AtomicLong();
+
+        @Override
+        public void update(StockObservableV2 stockObservableV2) {
+            alerts.incrementAndGet();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        PlainIntStock plain = new PlainIntStock();
+        runWarehouses(() -> plain.add(1), () -> plain.subtract(1));
+        System.out.printf("Plain int   : final stock=%d, alerts=%d%n", plain.currStock, plain.alerts.get());
+
+        Iphone17Observable iphone17 = new Iphone17Observable(0);
+        CountingAlert alert = new CountingAlert();
+        iphone17.addToWaitList(alert);
+        runWarehouses(() -> iphone17.updateStock(1, StockType.ADD), () -> iphone17.updateStock(1, StockType.SUBTRACT));
+
+        long alerts = alert.alerts.get();
+        System.out.printf("StockCounter: final stock=%d, alerts=%d, restocks=%d, depletions=%d%n",
+                iphone17.getStock(), alerts, iphone17.getRestockCount(), iphone17.getDepletionCount());
+
+        boolean ok = iphone17.getStock() == 0 && iphone17.getRestockCount() == iphone17.getDepletionCount();
+
+        Iphone17Observable lockstep = new Iphone17Observable(0);
+        CountingAlert lockstepAlert = new CountingAlert();
+        lockstep.addToWaitList(lockstepAlert);
+        runLockstep(() -> lockstep.updateStock(1, StockType.ADD), () -> lockstep.updateStock(1, StockType.SUBTRACT));
+        long lockstepAlerts = lockstepAlert.alerts.get();
+        System.out.printf("Lockstep    : final stock=%d, alerts=%d, expected=%d%n",
+                lockstep.getStock(), lockstepAlerts, LOCKSTEP_ROUNDS);
+        ok &= lockstep.getStock() == 0 && lockstepAlerts == LOCKSTEP_ROUNDS;
+
+        System.out.println(ok ? "PASS: no lost updates, exactly one alert per restock"
+                : "FAIL: stock counter lost updates or mis-fired alerts");
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    // Every round: all threads add at once, wait, all subtract at once, wait. One 0 -> positive move per round.
+    private static void runLockstep(Runnable add, Runnable subtract) throws InterruptedException {
+        CyclicBarrier barrier = new CyclicBarrier(THREADS);
+        List<Thread> warehouses = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Thread warehouse = new Thread(() -> {
+                try {
+                    for (int round = 0; round < LOCKSTEP_ROUNDS; round++) {
+                        add.run();
+                        barrier.await();
+                        subtract.run();
+                        barrier.await();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (BrokenBarrierException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            warehouses.add(warehouse);
+            warehouse.start();
+        }
+        for (Thread warehouse : warehouses) {
+            warehouse.join();
+        }
+    }
+
+    private static void runWarehouses(Runnable add, Runnable subtract) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> warehouses = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Thread warehouse = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < ROUNDS_PER_THREAD; i++) {
+                    add.run();      // Receive one unit...
+                    subtract.run(); // ...and sell it, never below zero because this thread added it first
+                }
+            });
+            warehouses.add(warehouse);
+            warehouse.start();
+        }
+        start.countDown();
+        for (Thread warehouse : warehouses) {
+            warehouse.join();
+        }
+    }
+}
+
+/* OUTPUT (the numbers differ on every run, except the lockstep ones)
+Plain int   : final stock=0, alerts=991234
+StockCounter: final stock=0, alerts=40437, restocks=40437, depletions=40437
+Lockstep    : final stock=0, alerts=2000, expected=2000
+PASS: no lost updates, exactly one alert per restock
+*/
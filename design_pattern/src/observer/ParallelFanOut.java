@@ -0,0 +1,212 @@
+package observer;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/*
+Splits a waitlist into chunks and delivers them on an executor, so slow I/O observers (email, SMS gateways)
+overlap instead of running one after another. Each channel (by default the observer's class name) can get a
+concurrency limit, so e.g. the SMS gateway never sees more than N requests at once.
+
+A pool worker never waits for a channel's permit. An observer whose channel is at its limit is parked in that
+channel's backlog and the worker moves on to the rest of its chunk; whichever thread next releases a permit of
+the channel delivers the backlog. A slow channel therefore only holds up its own deliveries.
+
+The executor is injected: a fixed pool or ForkJoinPool here, or Executors.newVirtualThreadPerTaskExecutor() on
+Java 21+ where blocking I/O observers are the common case.
+*/
+class ParallelFanOut {
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final Function<NotificationAlertObserverV2, String> channelOf;
+    private final Map<String, Semaphore> channelLimits = new ConcurrentHashMap<>();
+
+    public ParallelFanOut(ExecutorService executor, int chunkSize) {
+        this(executor, chunkSize, observer -> observer.getClass().getSimpleName());
+    }
+
+    public ParallelFanOut(ExecutorService executor, int chunkSize,
+                          Function<NotificationAlertObserverV2, String> channelOf) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.channelOf = channelOf;
+    }
+
+    // At most maxConcurrent update() calls in flight for this channel
+    public ParallelFanOut limitChannel(String channel, int maxConcurrent) {
+        channelLimits.put(channel, new Semaphore(maxConcurrent));
+        return this;
+    }
+
+    /*
+    Delivers to every observer and blocks until each one is delivered or failed. If the calling thread is
+    interrupted while waiting, it returns at once with the interrupt flag set and a report that is not
+    complete(): deliveries still running go on in the background but are not in the report.
+    */
+    public FanOutReport deliver(List<NotificationAlertObserverV2> observers, StockObservableV2 subject) {
+        Round round = new Round(subject, observers.size());
+        long start = System.nanoTime();
+
+        for (int from = 0; from < observers.size(); from += chunkSize) {
+            List<NotificationAlertObserverV2> chunk = observers.subList(from, Math.min(from + chunkSize, observers.size()));
+            executor.execute(() -> {
+                for (NotificationAlertObserverV2 observer : chunk) {
+                    deliverOrDefer(observer, round);
+                }
+            });
+        }
+        boolean interrupted = false;
+        try {
+            round.done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            interrupted = true;
+        }
+        return new FanOutReport(System.nanoTime() - start, observers.size(), interrupted, round.stats);
+    }
+
+    private void deliverOrDefer(NotificationAlertObserverV2 observer, Round round) {
+        String channel = channelOf.apply(observer);
+        Semaphore limit = channelLimits.get(channel);
+        if (limit == null) {
+            deliverOne(observer, channel, round);
+            return;
+        }
+        // Park first, then try to drain: if every permit is taken, one of their holders drains after releasing
+        round.backlogOf(channel).add(observer);
+        drain(channel, limit, round);
+    }
+
+    // Delivers the channel's backlog for as long as a permit is free
+    private void drain(String channel, Semaphore limit, Round round) {
+        Queue<NotificationAlertObserverV2> backlog = round.backlogOf(channel);
+        while (!backlog.isEmpty() && limit.tryAcquire()) {
+            NotificationAlertObserverV2 next = backlog.poll();
+            try {
+                if (next != null) {
+                    deliverOne(next, channel, round);
+                }
+            } finally {
+                limit.release();
+            }
+        }
+    }
+
+    private void deliverOne(NotificationAlertObserverV2 observer, String channel, Round round) {
+        ChannelStats channelStats = round.statsOf(channel);
+        long start = System.nanoTime();
+        try {
+            observer.update(round.subject);
+            channelStats.delivered.increment();
+        } catch (RuntimeException e) {
+            // One failing observer must not abort the rest of its chunk
+            System.err.println("Error notifying " + channel + ": " + e.getMessage());
+            channelStats.failed.increment();
+        } finally {
+            channelStats.busyNanos.add(System.nanoTime() - start);  // Time in update() only
+            round.done.countDown();
+        }
+    }
+
+    // State of one deliver() call
+    private static final class Round {
+        final StockObservableV2 subject;
+        final CountDownLatch done;  // One count per observer
+        final Map<String, ChannelStats> stats = new ConcurrentHashMap<>();
+        final Map<String, Queue<NotificationAlertObserverV2>> backlogs = new ConcurrentHashMap<>();
+
+        Round(StockObservableV2 subject, int observers) {
+            this.subject = subject;
+            this.done = new CountDownLatch(observers);
+        }
+
+        ChannelStats statsOf(String channel) {
+            return stats.computeIfAbsent(channel, c -> new ChannelStats());
+        }
+
+        Queue<NotificationAlertObserverV2> backlogOf(String channel) {
+            return backlogs.computeIfAbsent(channel, c -> new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    static final class ChannelStats {
+        final LongAdder delivered = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder busyNanos = new LongAdder();
+    }
+
+    static final class FanOutReport {
+        private final long elapsedNanos;
+        private final int observers;
+        private final boolean interrupted;
+        private final Map<String, ChannelStats> stats;
+
+        FanOutReport(long elapsedNanos, int observers, boolean interrupted, Map<String, ChannelStats> stats) {
+            this.elapsedNanos = elapsedNanos;
+            this.observers = observers;
+            this.interrupted = interrupted;
+            this.stats = Collections.unmodifiableMap(new LinkedHashMap<>(stats));
+        }
+
+        public long getElapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        }
+
+        public long getDelivered(String channel) {
+            ChannelStats channelStats = stats.get(channel);
+            return channelStats == null ? 0 : channelStats.delivered.sum();
+        }
+
+        public long getFailed(String channel) {
+            ChannelStats channelStats = stats.get(channel);
+            return channelStats == null ? 0 : channelStats.failed.sum();
+        }
+
+        // Whether the wait ran to the end; false when deliver() was interrupted
+        public boolean isComplete() {
+            return !interrupted;
+        }
+
+        // Observers that were delivered or failed when the report was taken
+        public long getFinished() {
+            long finished = 0;
+            for (ChannelStats channelStats : stats.values()) {
+                finished += channelStats.delivered.sum() + channelStats.failed.sum();
+            }
+            return finished;
+        }
+
+        // Deliveries per second for one channel over the whole fan-out
+        public double getThroughput(String channel) {
+            return elapsedNanos == 0 ? 0 : getDelivered(channel) * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(isComplete()
+                    ? String.format("Fan-out completed in %d ms%n", getElapsedMillis())
+                    : String.format("Fan-out INTERRUPTED after %d ms, %d of %d observers finished%n",
+                            getElapsedMillis(), getFinished(), observers));
+            for (Map.Entry<String, ChannelStats> entry : stats.entrySet()) {
+                ChannelStats channelStats = entry.getValue();
+                sb.append(String.format("  %-12s delivered=%d failed=%d throughput=%,.0f/s%n", entry.getKey(),
+                        channelStats.delivered.sum(), channelStats.failed.sum(), getThroughput(entry.getKey())));
+            }
+            return sb.toString();
+        }
+    }
+}
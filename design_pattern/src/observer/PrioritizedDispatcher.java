@@ -0,0 +1,98 @@
+package observer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/*
+Splits a notification round into two lanes using the observers' dispatch hints:
+- fast lane: HIGH priority or expected cost within the fast-lane budget (but never LOW). Runs first, on the
+  publishing thread, cheapest first.
+- background lane: everything else. Handed to an executor with at most 'backgroundConcurrency' alerts in
+  flight, so a slow SMS gateway can neither delay app pushes nor get flooded.
+
+Each lane records the time from the start of the round to each delivery in its own LatencyHistogram.
+*/
+class PrioritizedDispatcher {
+    private static final Comparator<NotificationAlertObserverV2> DISPATCH_ORDER =
+            Comparator.comparing(NotificationAlertObserverV2::priority)
+                    .thenComparingLong(NotificationAlertObserverV2::expectedCostMicros);
+
+    private final ExecutorService backgroundLane;
+    private final Semaphore backgroundPermits;
+    private final long fastLaneMaxCostMicros;
+    private final LatencyHistogram fastLaneLatency = new LatencyHistogram();
+    private final LatencyHistogram backgroundLaneLatency = new LatencyHistogram();
+
+    public PrioritizedDispatcher(ExecutorService backgroundLane, int backgroundConcurrency, long fastLaneMaxCostMicros) {
+        if (backgroundConcurrency <= 0) {
+            throw new IllegalArgumentException("backgroundConcurrency must be positive: " + backgroundConcurrency);
+        }
+        this.backgroundLane = backgroundLane;
+        this.backgroundPermits = new Semaphore(backgroundConcurrency);
+        this.fastLaneMaxCostMicros = fastLaneMaxCostMicros;
+    }
+
+    // Returns once the fast lane is done, the background lane keeps running
+    public void dispatch(List<NotificationAlertObserverV2> observers, StockObservableV2 subject) {
+        long roundStart = System.nanoTime();
+        List<NotificationAlertObserverV2> fast = new ArrayList<>();
+        List<NotificationAlertObserverV2> background = new ArrayList<>();
+        for (NotificationAlertObserverV2 observer : observers) {
+            (isFastLane(observer) ? fast : background).add(observer);
+        }
+        fast.sort(DISPATCH_ORDER);
+        background.sort(DISPATCH_ORDER);
+
+        for (NotificationAlertObserverV2 observer : fast) {
+            deliver(observer, subject, roundStart, fastLaneLatency);
+        }
+        for (NotificationAlertObserverV2 observer : background) {
+            try {
+                backgroundLane.execute(() -> deliverThrottled(observer, subject, roundStart));
+            } catch (RejectedExecutionException e) {
+                System.err.println("Background lane rejected an alert: " + e.getMessage());
+            }
+        }
+    }
+
+    private boolean isFastLane(NotificationAlertObserverV2 observer) {
+        return observer.priority() == DispatchPriority.HIGH
+                || (observer.priority() != DispatchPriority.LOW && observer.expectedCostMicros() <= fastLaneMaxCostMicros);
+    }
+
+    private void deliverThrottled(NotificationAlertObserverV2 observer, StockObservableV2 subject, long roundStart) {
+        try {
+            backgroundPermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            deliver(observer, subject, roundStart, backgroundLaneLatency);
+        } finally {
+            backgroundPermits.release();
+        }
+    }
+
+    private void deliver(NotificationAlertObserverV2 observer, StockObservableV2 subject, long roundStart,
+                         LatencyHistogram lane) {
+        try {
+            observer.update(subject);
+        } catch (RuntimeException e) {
+            System.err.println("Error notifying observer: " + e.getMessage());
+        }
+        lane.record(System.nanoTime() - roundStart);
+    }
+
+    public LatencyHistogram getFastLaneLatency() {
+        return fastLaneLatency;
+    }
+
+    public LatencyHistogram getBackgroundLaneLatency() {
+        return backgroundLaneLatency;
+    }
+}
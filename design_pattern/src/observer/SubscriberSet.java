@@ -0,0 +1,127 @@
+package observer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/*
+Subscriber registry with O(1) add, remove and contains, iterated in subscription order.
+
+Subscribers sit in an array and an identity map remembers each one's slot. Removing a subscriber only clears
+its slot, and the array is compacted into a new copy once more than half of it is empty. Because compaction
+never touches the array an iterator is walking, an observer may unsubscribe itself (or others) from inside a
+notification without a ConcurrentModificationException.
+
+Not thread-safe: the subjects that use it from several threads guard it with their own lock.
+It is public so the observer.revision subpackages can use it as well.
+*/
+public final class SubscriberSet<T> implements Iterable<T> {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final Map<T, Integer> slots = new IdentityHashMap<>();
+    private Object[] items = new Object[INITIAL_CAPACITY];
+    private int end;  // One past the last used slot
+
+    // Returns false if the subscriber is already registered (or null)
+    public boolean add(T subscriber) {
+        if (subscriber == null || slots.containsKey(subscriber)) {
+            return false;
+        }
+        if (end == items.length) {
+            // Reclaim cleared slots first, only grow when the array is really full
+            items = slots.size() < items.length / 2 ? compactedCopy(items.length) : compactedCopy(items.length * 2);
+        }
+        items[end] = subscriber;
+        slots.put(subscriber, end++);
+        return true;
+    }
+
+    public boolean remove(Object subscriber) {
+        Integer slot = slots.remove(subscriber);
+        if (slot == null) {
+            return false;
+        }
+        items[slot] = null;
+        if (slots.isEmpty()) {
+            items = new Object[INITIAL_CAPACITY];
+            end = 0;
+        } else if (slots.size() < end / 2) {
+            items = compactedCopy(Math.max(INITIAL_CAPACITY, slots.size() * 2));
+        }
+        return true;
+    }
+
+    public boolean contains(Object subscriber) {
+        return slots.containsKey(subscriber);
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    public boolean isEmpty() {
+        return slots.isEmpty();
+    }
+
+    // Unmodifiable snapshot in subscription order
+    public List<T> toList() {
+        List<T> list = new ArrayList<>(slots.size());
+        for (T subscriber : this) {
+            list.add(subscriber);
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    // Copies the live subscribers to the front of a new array and re-indexes them
+    private Object[] compactedCopy(int capacity) {
+        Object[] copy = new Object[capacity];
+        int next = 0;
+        for (int i = 0; i < end; i++) {
+            if (items[i] != null) {
+                @SuppressWarnings("unchecked")
+                T subscriber = (T) items[i];
+                copy[next] = subscriber;
+                slots.put(subscriber, next++);
+            }
+        }
+        end = next;
+        return copy;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        final Object[] array = items;
+        final int limit = end;
+        return new Iterator<T>() {
+            private int cursor;
+
+            @Override
+            public boolean hasNext() {
+                // Slots can be cleared while we iterate (an observer unsubscribing), so skip them lazily
+                while (cursor < limit && array[cursor] == null) {
+                    cursor++;
+                }
+                return cursor < limit;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return (T) array[cursor++];
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toList().toArray());
+    }
+}
@@ -0,0 +1,12 @@
+package observer;
+
+/*
+Handle returned when subscribing through a SubscriptionRegistry. Cancelling it has the same effect as
+removing the observer from its subject. Public so the observer.revision subpackages can use it as well.
+*/
+public interface Subscription {
+    void cancel();
+
+    // False once cancelled, once a lease has expired, or once a weakly held observer was garbage collected
+    boolean isActive();
+}
@@ -0,0 +1,194 @@
+package observer;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/*
+Observer registry that hands out Subscription handles. Besides normal (strong) subscriptions it supports:
+- weak subscriptions: the subject does not keep the observer alive, so a forgotten observer can be collected
+- leases: the subscription ends by itself after a time-to-live
+
+Dead entries (collected, expired or cancelled) are purged lazily while iterating for a dispatch, so no sweeper
+thread is needed. Entries live in a SubscriberSet, so add/remove stay O(1) and iteration keeps subscription order.
+Observers are told apart by identity, like in SubscriberSet: two equal observers get two subscriptions.
+
+Not thread-safe, same as SubscriberSet.
+*/
+public final class SubscriptionRegistry<T> implements Iterable<T> {
+    private static final long NO_EXPIRY = Long.MAX_VALUE;
+
+    // Weak lookup key compared by identity. A cleared key is only equal to itself, so its entry can still be removed.
+    private static final class IdentityKey extends WeakReference<Object> {
+        private final int hash;
+
+        IdentityKey(Object observer, ReferenceQueue<Object> queue) {
+            super(observer, queue);
+            this.hash = System.identityHashCode(observer);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof IdentityKey)) {
+                return false;
+            }
+            Object observer = get();
+            return observer != null && observer == ((IdentityKey) o).get();
+        }
+    }
+
+    private final class Entry implements Subscription {
+        private final IdentityKey key;
+        private final T strongRef;
+        private final WeakReference<T> weakRef;
+        private final long expiresAtNanos;
+        private boolean cancelled;
+
+        Entry(T observer, boolean weak, long expiresAtNanos) {
+            this.key = new IdentityKey(observer, staleKeys);
+            this.strongRef = weak ? null : observer;
+            this.weakRef = weak ? new WeakReference<>(observer) : null;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        T observer() {
+            return weakRef != null ? weakRef.get() : strongRef;
+        }
+
+        boolean isLive(long nowNanos) {
+            return !cancelled
+                    && (expiresAtNanos == NO_EXPIRY || nowNanos - expiresAtNanos < 0)
+                    && observer() != null;
+        }
+
+        @Override
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                entries.remove(this);
+                if (byObserver.get(key) == this) {
+                    byObserver.remove(key);
+                }
+            }
+        }
+
+        @Override
+        public boolean isActive() {
+            return isLive(System.nanoTime());
+        }
+    }
+
+    private final SubscriberSet<Entry> entries = new SubscriberSet<>();
+    // Weak identity keys, so this lookup table never keeps a weakly subscribed observer alive
+    private final Map<IdentityKey, Entry> byObserver = new HashMap<>();
+    private final ReferenceQueue<Object> staleKeys = new ReferenceQueue<>();
+
+    public Subscription subscribe(T observer) {
+        return register(observer, false, NO_EXPIRY);
+    }
+
+    public Subscription subscribeWeakly(T observer) {
+        return register(observer, true, NO_EXPIRY);
+    }
+
+    public Subscription subscribeFor(T observer, Duration ttl) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("ttl must be positive: " + ttl);
+        }
+        return register(observer, false, System.nanoTime() + ttl.toNanos());
+    }
+
+    // Subscribing an already subscribed observer replaces its old subscription (e.g. to renew a lease)
+    private Subscription register(T observer, boolean weak, long expiresAtNanos) {
+        if (observer == null) {
+            throw new IllegalArgumentException("observer must not be null");
+        }
+        unsubscribe(observer);
+        Entry entry = new Entry(observer, weak, expiresAtNanos);
+        entries.add(entry);
+        byObserver.put(entry.key, entry);
+        return entry;
+    }
+
+    public boolean unsubscribe(T observer) {
+        Entry entry = lookup(observer);
+        if (entry == null) {
+            return false;
+        }
+        entry.cancel();
+        return true;
+    }
+
+    public boolean contains(T observer) {
+        Entry entry = lookup(observer);
+        return entry != null && entry.isActive();
+    }
+
+    private Entry lookup(T observer) {
+        if (observer == null) {
+            return null;
+        }
+        expungeStaleKeys();
+        return byObserver.get(new IdentityKey(observer, null));
+    }
+
+    // Drops lookup entries whose observer was collected; their Entry is purged from 'entries' by the next dispatch
+    private void expungeStaleKeys() {
+        Reference<?> stale;
+        while ((stale = staleKeys.poll()) != null) {
+            byObserver.remove(stale);
+        }
+    }
+
+    // Upper bound: dead entries are only counted out once a dispatch has purged them
+    public int size() {
+        return entries.size();
+    }
+
+    // Iterates live observers, purging dead entries on the way
+    @Override
+    public Iterator<T> iterator() {
+        final long now = System.nanoTime();
+        final Iterator<Entry> it = entries.iterator();
+        return new Iterator<T>() {
+            private T next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && it.hasNext()) {
+                    Entry entry = it.next();
+                    T observer = entry.observer();
+                    if (observer != null && entry.isLive(now)) {
+                        next = observer;
+                    } else {
+                        entry.cancel(); // SubscriberSet allows removal while iterating
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                T observer = next;
+                next = null;
+                return observer;
+            }
+        };
+    }
+}
@@ -0,0 +1,196 @@
+package observer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/*
+Subscriptions by topic pattern, stored in a trie with one level per '/'-separated topic segment.
+
+Patterns follow the MQTT conventions:
+- "news/india/delhi" matches only that topic
+- '*' matches exactly one level: "news/*" matches "news/india" but not "news/india/delhi"
+- '#' as the last segment matches the parent level and everything below it: "stock/#" matches "stock",
+  "stock/iphone" and "stock/iphone/17"
+
+match() walks one path per wildcard branch, so publishing costs O(topic depth) trie steps plus the matching
+subscribers, independent of how many subscriptions or topics exist elsewhere. A subscriber registered through
+two patterns that both match a topic is called once per pattern.
+
+Not thread-safe, same as SubscriberSet: subjects that publish from several threads guard it with their own lock.
+Public so the observer.revision subpackages can use it as well.
+*/
+public final class TopicTrie<T> {
+    public static final char SEPARATOR = '/';
+    public static final String SINGLE_LEVEL = "*";
+    public static final String MULTI_LEVEL = "#";
+
+    private static final class Node<T> {
+        private Map<String, Node<T>> children;  // Created on first child, most nodes near the leaves have none
+        private Node<T> singleLevel;            // '*'
+        private Node<T> multiLevel;             // '#', always a leaf
+        private SubscriberSet<T> subscribers;   // Created on first subscriber
+
+        boolean isEmpty() {
+            return (children == null || children.isEmpty()) && singleLevel == null && multiLevel == null
+                    && (subscribers == null || subscribers.isEmpty());
+        }
+    }
+
+    private final Node<T> root = new Node<>();
+    private int subscriptionCount;
+    private int nodeCount = 1;
+
+    // Returns false if the subscriber already has this exact pattern
+    public boolean subscribe(String pattern, T subscriber) {
+        validatePattern(pattern);
+        Node<T> node = root;
+        int from = 0;
+        while (from <= pattern.length()) {
+            int end = segmentEnd(pattern, from);
+            node = childFor(node, pattern.substring(from, end));
+            from = end + 1;
+        }
+        if (node.subscribers == null) {
+            node.subscribers = new SubscriberSet<>();
+        }
+        if (!node.subscribers.add(subscriber)) {
+            return false;
+        }
+        subscriptionCount++;
+        return true;
+    }
+
+    public boolean unsubscribe(String pattern, T subscriber) {
+        validatePattern(pattern);
+        if (!unsubscribe(root, pattern, 0, subscriber)) {
+            return false;
+        }
+        subscriptionCount--;
+        return true;
+    }
+
+    // Recurses so emptied nodes can be pruned on the way back up
+    private boolean unsubscribe(Node<T> node, String pattern, int from, T subscriber) {
+        if (from > pattern.length()) {
+            return node.subscribers != null && node.subscribers.remove(subscriber);
+        }
+        int end = segmentEnd(pattern, from);
+        String segment = pattern.substring(from, end);
+        Node<T> child = childOrNull(node, segment);
+        if (child == null || !unsubscribe(child, pattern, end + 1, subscriber)) {
+            return false;
+        }
+        if (child.isEmpty()) {
+            removeChild(node, segment);
+            nodeCount--;
+        }
+        return true;
+    }
+
+    // Calls 'action' once for every subscription whose pattern matches the concrete topic
+    public void match(String topic, Consumer<? super T> action) {
+        if (topic.indexOf('*') >= 0 || topic.indexOf('#') >= 0) {
+            throw new IllegalArgumentException("Wildcards are only allowed in subscriptions: " + topic);
+        }
+        match(root, topic, 0, action);
+    }
+
+    private void match(Node<T> node, String topic, int from, Consumer<? super T> action) {
+        if (node.multiLevel != null) {
+            deliver(node.multiLevel, action);  // '#' also matches when no level is left
+        }
+        if (from > topic.length()) {
+            deliver(node, action);
+            return;
+        }
+        int end = segmentEnd(topic, from);
+        if (node.children != null) {
+            Node<T> child = node.children.get(topic.substring(from, end));
+            if (child != null) {
+                match(child, topic, end + 1, action);
+            }
+        }
+        if (node.singleLevel != null) {
+            match(node.singleLevel, topic, end + 1, action);
+        }
+    }
+
+    private void deliver(Node<T> node, Consumer<? super T> action) {
+        if (node.subscribers != null) {
+            for (T subscriber : node.subscribers) {
+                action.accept(subscriber);
+            }
+        }
+    }
+
+    public int getSubscriptionCount() {
+        return subscriptionCount;
+    }
+
+    // Trie nodes, i.e. distinct pattern prefixes, including the root
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    private Node<T> childFor(Node<T> node, String segment) {
+        Node<T> child = childOrNull(node, segment);
+        if (child != null) {
+            return child;
+        }
+        child = new Node<>();
+        nodeCount++;
+        if (segment.equals(SINGLE_LEVEL)) {
+            node.singleLevel = child;
+        } else if (segment.equals(MULTI_LEVEL)) {
+            node.multiLevel = child;
+        } else {
+            if (node.children == null) {
+                node.children = new HashMap<>(4);
+            }
+            node.children.put(segment, child);
+        }
+        return child;
+    }
+
+    private Node<T> childOrNull(Node<T> node, String segment) {
+        if (segment.equals(SINGLE_LEVEL)) {
+            return node.singleLevel;
+        }
+        if (segment.equals(MULTI_LEVEL)) {
+            return node.multiLevel;
+        }
+        return node.children == null ? null : node.children.get(segment);
+    }
+
+    private void removeChild(Node<T> node, String segment) {
+        if (segment.equals(SINGLE_LEVEL)) {
+            node.singleLevel = null;
+        } else if (segment.equals(MULTI_LEVEL)) {
+            node.multiLevel = null;
+        } else {
+            node.children.remove(segment);
+        }
+    }
+
+    private static int segmentEnd(String topic, int from) {
+        int end = topic.indexOf(SEPARATOR, from);
+        return end < 0 ? topic.length() : end;
+    }
+
+    private static void validatePattern(String pattern) {
+        int from = 0;
+        while (from <= pattern.length()) {
+            int end = segmentEnd(pattern, from);
+            String segment = pattern.substring(from, end);
+            boolean wildcard = segment.equals(SINGLE_LEVEL) || segment.equals(MULTI_LEVEL);
+            if (!wildcard && (segment.indexOf('*') >= 0 || segment.indexOf('#') >= 0)) {
+                throw new IllegalArgumentException("Wildcards must be a whole level: " + pattern);
+            }
+            if (segment.equals(MULTI_LEVEL) && end != pattern.length()) {
+                throw new IllegalArgumentException("'#' is only allowed as the last level: " + pattern);
+            }
+            from = end + 1;
+        }
+    }
+}
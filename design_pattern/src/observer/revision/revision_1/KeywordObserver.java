@@ -0,0 +1,6 @@
+package observer.revision.revision_1;
+
+// Observers that only care about messages containing their trigger keyword
+interface KeywordObserver extends MessageObserver {
+    String getTrigger();
+}
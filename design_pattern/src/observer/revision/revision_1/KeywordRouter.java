@@ -0,0 +1,162 @@
+package observer.revision.revision_1;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Multi-pattern (Aho-Corasick) index of keyword observers: a message is scanned once, case-insensitively,
+// and only observers whose trigger occurs in it are returned.
+class KeywordRouter {
+    private static final KeywordObserver[] NO_OBSERVERS = new KeywordObserver[0];
+
+    private static final class Node {
+        private char[] keys = new char[2];
+        private Node[] children = new Node[2];
+        private int childCount;
+        private Node fail;
+        private Node outputLink; // Nearest node on the fail chain that ends a trigger
+        private KeywordObserver[] outputs = NO_OBSERVERS;
+
+        Node child(char c) {
+            for (int i = 0; i < childCount; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node addChild(char c) {
+            Node existing = child(c);
+            if (existing != null) {
+                return existing;
+            }
+            if (childCount == keys.length) {
+                keys = Arrays.copyOf(keys, childCount * 2);
+                children = Arrays.copyOf(children, childCount * 2);
+            }
+            Node node = new Node();
+            keys[childCount] = c;
+            children[childCount++] = node;
+            return node;
+        }
+
+        void addOutput(KeywordObserver observer) {
+            outputs = Arrays.copyOf(outputs, outputs.length + 1);
+            outputs[outputs.length - 1] = observer;
+        }
+    }
+
+    private final Map<KeywordObserver, String> triggers = new LinkedHashMap<>();
+    private final List<KeywordObserver> alwaysMatch = new ArrayList<>(); // Empty triggers match everything
+    private final Map<KeywordObserver, Boolean> seen = new IdentityHashMap<>(); // Only used inside match(), which calls no observer
+    private Node root;
+
+    public boolean add(KeywordObserver observer) {
+        if (triggers.containsKey(observer)) {
+            return false;
+        }
+        String trigger = observer.getTrigger() == null ? "" : fold(observer.getTrigger());
+        triggers.put(observer, trigger);
+        root = null; // Rebuilt lazily on the next match
+        return true;
+    }
+
+    public boolean remove(MessageObserver observer) {
+        if (triggers.remove(observer) == null) {
+            return false;
+        }
+        root = null;
+        return true;
+    }
+
+    public boolean contains(MessageObserver observer) {
+        return triggers.containsKey(observer);
+    }
+
+    public int size() {
+        return triggers.size();
+    }
+
+    // Returns a new list of the matching observers in order of first match. A new list each time, so a bot that
+    // posts from onMessageReceived can re-enter match() while the caller is still iterating the previous result.
+    public List<KeywordObserver> match(String message) {
+        if (root == null) {
+            build();
+        }
+        List<KeywordObserver> matches = new ArrayList<>(alwaysMatch);
+        Node state = root;
+        for (int i = 0; i < message.length(); i++) {
+            char c = Character.toLowerCase(message.charAt(i));
+            Node next = state.child(c);
+            while (next == null && state != root) {
+                state = state.fail;
+                next = state.child(c);
+            }
+            state = next == null ? root : next;
+            for (Node out = state.outputs.length > 0 ? state : state.outputLink; out != null; out = out.outputLink) {
+                for (KeywordObserver observer : out.outputs) {
+                    if (seen.put(observer, Boolean.TRUE) == null) {
+                        matches.add(observer);
+                    }
+                }
+            }
+        }
+        seen.clear();
+        return matches;
+    }
+
+    // Lower-cases char by char, exactly as match() folds the message, so e.g. 'İ' or a Turkish default locale
+    // cannot make a trigger and a message disagree
+    private static String fold(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private void build() {
+        Node newRoot = new Node();
+        alwaysMatch.clear();
+        for (Map.Entry<KeywordObserver, String> entry : triggers.entrySet()) {
+            String trigger = entry.getValue();
+            if (trigger.isEmpty()) {
+                alwaysMatch.add(entry.getKey());
+                continue;
+            }
+            Node node = newRoot;
+            for (int i = 0; i < trigger.length(); i++) {
+                node = node.addChild(trigger.charAt(i));
+            }
+            node.addOutput(entry.getKey());
+        }
+
+        // Breadth-first so every fail link points at an already finished, shallower node
+        ArrayDeque<Node> queue = new ArrayDeque<>();
+        for (int i = 0; i < newRoot.childCount; i++) {
+            newRoot.children[i].fail = newRoot;
+            queue.add(newRoot.children[i]);
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            for (int i = 0; i < node.childCount; i++) {
+                char c = node.keys[i];
+                Node child = node.children[i];
+                Node fail = node.fail;
+                while (fail != newRoot && fail.child(c) == null) {
+                    fail = fail.fail;
+                }
+                Node target = fail.child(c);
+                child.fail = target == null ? newRoot : target;
+                child.outputLink = child.fail.outputs.length > 0 ? child.fail : child.fail.outputLink;
+                queue.add(child);
+            }
+        }
+        root = newRoot;
+    }
+}
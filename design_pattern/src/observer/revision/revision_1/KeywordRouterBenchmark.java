@@ -0,0 +1,109 @@
+package observer.revision.revision_1;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/*
+Compares the two ways ChatGroup can wake keyword bots:
+- naive: every bot lower-cases the message and runs contains(trigger), like BotObserver does
+- routed: KeywordRouter scans the message once and returns only the bots whose trigger occurs in it
+
+Run: java observer.revision.revision_1.KeywordRouterBenchmark [bots] [messages]
+*/
+public class KeywordRouterBenchmark {
+
+    // Silent bot so the benchmark measures routing, not System.out
+    static class CountingBot implements KeywordObserver {
+        private final String trigger;
+        private long hits;
+
+        CountingBot(String trigger) {
+            this.trigger = trigger;
+        }
+
+        @Override
+        public void onMessageReceived(String message) {
+            hits++;
+        }
+
+        @Override
+        public String getName() { return "CountingBot[" + trigger + "]"; }
+
+        @Override
+        public String getTrigger() { return trigger; }
+    }
+
+    public static void main(String[] args) {
+        int botCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int messageCount = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        Random random = new Random(42);
+
+        List<CountingBot> bots = new ArrayList<>(botCount);
+        KeywordRouter router = new KeywordRouter();
+        for (int i = 0; i < botCount; i++) {
+            CountingBot bot = new CountingBot("Topic" + i);
+            bots.add(bot);
+            router.add(bot);
+        }
+
+        // ~120 char chat messages, each mentioning two random triggers
+        String[] messages = new String[messageCount];
+        for (int i = 0; i < messageCount; i++) {
+            messages[i] = "Has anyone looked at TOPIC" + random.nextInt(botCount)
+                    + " yet? I think it is related to topic" + random.nextInt(botCount)
+                    + " but I am not sure, please reply soon";
+        }
+
+        // Warm up both paths so the JIT compiles them before we time anything
+        for (int round = 0; round < 5; round++) {
+            naive(bots, messages);
+            routed(router, messages);
+        }
+
+        long start = System.nanoTime();
+        long naiveHits = naive(bots, messages);
+        long naiveNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long routedHits = routed(router, messages);
+        long routedNanos = System.nanoTime() - start;
+
+        System.out.printf("Bots: %d, messages: %d%n", botCount, messageCount);
+        System.out.printf("Naive  : %,10d ns/message (%d bot wake-ups)%n", naiveNanos / messageCount, naiveHits);
+        System.out.printf("Routed : %,10d ns/message (%d bot wake-ups)%n", routedNanos / messageCount, routedHits);
+        System.out.printf("Speed-up: %.1fx%n", (double) naiveNanos / routedNanos);
+    }
+
+    private static long naive(List<CountingBot> bots, String[] messages) {
+        long hits = 0;
+        for (String message : messages) {
+            for (CountingBot bot : bots) {
+                if (message.toLowerCase().contains(bot.getTrigger().toLowerCase())) {
+                    bot.onMessageReceived(message);
+                    hits++;
+                }
+            }
+        }
+        return hits;
+    }
+
+    private static long routed(KeywordRouter router, String[] messages) {
+        long hits = 0;
+        for (String message : messages) {
+            for (KeywordObserver bot : router.match(message)) {
+                bot.onMessageReceived(message);
+                hits++;
+            }
+        }
+        return hits;
+    }
+}
+
+/*
+OUTPUT (numbers vary by machine):
+Bots: 10000, messages: 2000
+Naive  :  2,377,720 ns/message (15357 bot wake-ups)
+Routed :      2,963 ns/message (15357 bot wake-ups)
+Speed-up: 802.3x
+*/
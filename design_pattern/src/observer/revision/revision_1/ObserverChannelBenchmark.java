@@ -0,0 +1,151 @@
+package observer.revision.revision_1;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+import observer.ObserverBenchmarkHarness;
+import observer.revision.revision_1.ObserverThreadSafetyDemo.AsyncCopyOnWriteNewsChannel;
+import observer.revision.revision_1.ObserverThreadSafetyDemo.BackPressurePolicy;
+import observer.revision.revision_1.ObserverThreadSafetyDemo.CopyOnWriteNewsChannel;
+import observer.revision.revision_1.ObserverThreadSafetyDemo.LockFreeNewsChannel;
+import observer.revision.revision_1.ObserverThreadSafetyDemo.ReadWriteLockNewsChannel;
+import observer.revision.revision_1.ObserverThreadSafetyDemo.SynchronizedNewsChannel;
+import observer.revision.revision_1.ObserverThreadSafetyDemo.UnsafeObserver;
+
+/*
+Publish latency, bytes allocated per publish and publisher-thread scaling for the channels in
+ObserverThreadSafetyDemo and for ChatGroup, with 1 to 100k subscribers and 1, 8 and 64 publisher threads.
+The single-threaded subjects of the observer package are covered by observer.ObserverBenchmark.
+
+ChatGroup logs every post to System.out, so stdout is swapped for a null stream while it is measured. Its
+numbers still include building those log lines.
+
+Run: java -Xmx2g observer.revision.revision_1.ObserverChannelBenchmark
+*/
+public class ObserverChannelBenchmark {
+    private static final String NEWS = "Breaking News";
+    private static final PrintStream NULL_OUT = new PrintStream(OutputStream.nullOutputStream());
+
+    // Silent observer, so the numbers show dispatch cost and not System.out
+    static class CountingObserver implements UnsafeObserver {
+        private final LongAdder received = new LongAdder();  // Striped, so the counter is not the bottleneck
+
+        @Override
+        public void update(String message) {
+            received.increment();
+        }
+
+        @Override
+        public String getName() { return "CountingObserver"; }
+    }
+
+    static class CountingMember implements MessageObserver {
+        private final LongAdder received = new LongAdder();
+
+        @Override
+        public void onMessageReceived(String message) {
+            received.increment();
+        }
+
+        @Override
+        public String getName() { return "CountingMember"; }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        ExecutorService dispatcher = Executors.newFixedThreadPool(4);
+
+        // Each factory builds a subject with n subscribers and returns one "publish" operation
+        Map<String, IntFunction<Runnable>> channels = new LinkedHashMap<>();
+        channels.put("Synchronized", n -> {
+            SynchronizedNewsChannel channel = new SynchronizedNewsChannel();
+            for (int i = 0; i < n; i++) {
+                channel.addObserver(new CountingObserver());
+            }
+            return () -> channel.publishNews(NEWS);
+        });
+        channels.put("CopyOnWrite", n -> {
+            CopyOnWriteNewsChannel channel = new CopyOnWriteNewsChannel();
+            for (int i = 0; i < n; i++) {
+                channel.addObserver(new CountingObserver());
+            }
+            return () -> channel.publishNews(NEWS);
+        });
+        channels.put("ReadWriteLock", n -> {
+            ReadWriteLockNewsChannel channel = new ReadWriteLockNewsChannel();
+            for (int i = 0; i < n; i++) {
+                channel.addObserver(new CountingObserver());
+            }
+            return () -> channel.publishNews(NEWS);
+        });
+        channels.put("LockFree (CAS)", n -> {
+            LockFreeNewsChannel channel = new LockFreeNewsChannel();
+            for (int i = 0; i < n; i++) {
+                channel.addObserver(new CountingObserver());
+            }
+            return () -> channel.publishNews(NEWS);
+        });
+        channels.put("AsyncCopyOnWrite", n -> {
+            AsyncCopyOnWriteNewsChannel channel = new AsyncCopyOnWriteNewsChannel(dispatcher);
+            for (int i = 0; i < n; i++) {
+                // Single-slot mailboxes keep memory flat at 100k subscribers
+                channel.addObserver(new CountingObserver(), BackPressurePolicy.COALESCE_LATEST, 1);
+            }
+            return () -> channel.publishNews(NEWS);
+        });
+        channels.put("ChatGroup", n -> {
+            PrintStream stdout = System.out;
+            System.setOut(NULL_OUT);
+            ChatGroup group = new ChatGroup("Benchmark Group");
+            for (int i = 0; i < n; i++) {
+                group.subscribe(new CountingMember());
+            }
+            System.setOut(stdout);
+            return () -> {
+                PrintStream original = System.out;
+                System.setOut(NULL_OUT);
+                try {
+                    group.postMessage(NEWS);
+                } finally {
+                    System.setOut(original);
+                }
+            };
+        });
+
+        System.out.println("Publish latency (single publisher thread)");
+        ObserverBenchmarkHarness.printLatencyHeader();
+        for (Map.Entry<String, IntFunction<Runnable>> entry : channels.entrySet()) {
+            for (int subscribers : ObserverBenchmarkHarness.SUBSCRIBER_COUNTS) {
+                Runnable publish = entry.getValue().apply(subscribers);
+                ObserverBenchmarkHarness.LatencyResult result = ObserverBenchmarkHarness.measureLatency(
+                        publish, ObserverBenchmarkHarness.iterationsFor(subscribers));
+                ObserverBenchmarkHarness.printLatencyRow(entry.getKey(), subscribers, result);
+            }
+        }
+
+        System.out.println();
+        System.out.println("Publisher-thread scaling (ChatGroup is not thread-safe and is skipped)");
+        ObserverBenchmarkHarness.printThroughputHeader();
+        for (Map.Entry<String, IntFunction<Runnable>> entry : channels.entrySet()) {
+            if (entry.getKey().equals("ChatGroup")) {
+                continue;
+            }
+            for (int subscribers : new int[]{16, 10_000}) {
+                Runnable publish = entry.getValue().apply(subscribers);
+                int total = ObserverBenchmarkHarness.iterationsFor(subscribers);
+                ObserverBenchmarkHarness.measureThroughput(publish, 8, Math.max(10, total / 8)); // Warm-up
+                for (int threads : ObserverBenchmarkHarness.PUBLISHER_THREADS) {
+                    double throughput = ObserverBenchmarkHarness.measureThroughput(
+                            publish, threads, Math.max(10, total / threads));
+                    ObserverBenchmarkHarness.printThroughputRow(entry.getKey(), subscribers, threads, throughput);
+                }
+            }
+        }
+        dispatcher.shutdownNow();
+    }
+}
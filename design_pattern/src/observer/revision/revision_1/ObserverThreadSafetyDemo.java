@@ -2,10 +2,18 @@ package observer.revision.revision_1;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import observer.DispatchMetrics;
+import observer.LatencyHistogram;
+import observer.SubscriberSet;
+
 public class ObserverThreadSafetyDemo {
 
     // ❌ UNSAFE: Observer pattern like your original implementation
@@ -72,8 +80,9 @@ public class ObserverThreadSafetyDemo {
 
     // ✅ THREAD-SAFE: Synchronized Observer pattern
     static class SynchronizedNewsChannel implements UnsafeSubject {
-        private final List<UnsafeObserver> observers = new ArrayList<>();
+        private final SubscriberSet<UnsafeObserver> observers = new SubscriberSet<>();  // O(1) add/remove/contains
         private String latestNews;
+        private DispatchMetrics metrics;  // null = not instrumented
 
         public synchronized void publishNews(String news) {
             latestNews = news;
@@ -82,9 +91,7 @@ public class ObserverThreadSafetyDemo {
 
         @Override
         public synchronized void addObserver(UnsafeObserver observer) {
-            if (observer != null && !observers.contains(observer)) {
-                observers.add(observer);
-            }
+            observers.add(observer);  // Ignores null and duplicates
         }
 
         @Override
@@ -96,14 +103,14 @@ public class ObserverThreadSafetyDemo {
         public synchronized void notifyObservers() {
             // ✅ Synchronized ensures no concurrent modification
             for (UnsafeObserver observer : observers) {
-                try {
-                    observer.update(latestNews);
-                } catch (Exception e) {
-                    System.err.println("Error notifying observer: " + e.getMessage());
-                }
+                deliver(observer, latestNews, null, metrics);
+            }
+            if (metrics != null) {
+                metrics.recordPublish(observers.size());
             }
         }
 
+        public synchronized void setMetrics(DispatchMetrics metrics) { this.metrics = metrics; }
         public synchronized int getObserverCount() { return observers.size(); }
     }
 
@@ -111,6 +118,16 @@ public class ObserverThreadSafetyDemo {
     static class CopyOnWriteNewsChannel implements UnsafeSubject {
         private final CopyOnWriteArrayList<UnsafeObserver> observers = new CopyOnWriteArrayList<>();
         private volatile String latestNews;
+        private volatile GuardedInvoker guard;  // Optional deadline + circuit breaker per observer call
+        private volatile DispatchMetrics metrics;  // null = not instrumented
+
+        public void setGuardedInvoker(GuardedInvoker guard) {
+            this.guard = guard;
+        }
+
+        public void setMetrics(DispatchMetrics metrics) {
+            this.metrics = metrics;
+        }
 
         public void publishNews(String news) {
             latestNews = news;
@@ -119,25 +136,32 @@ public class ObserverThreadSafetyDemo {
 
         @Override
         public void addObserver(UnsafeObserver observer) {
-            if (observer != null && !observers.contains(observer)) {
-                observers.add(observer);  // ✅ Thread-safe
+            if (observer != null) {
+                observers.addIfAbsent(observer);  // ✅ Thread-safe, atomic check-and-add in a single pass
             }
         }
 
         @Override
         public void removeObserver(UnsafeObserver observer) {
             observers.remove(observer);  // ✅ Thread-safe
+            GuardedInvoker current = guard;
+            if (current != null) {
+                current.forget(observer);
+            }
         }
 
         @Override
         public void notifyObservers() {
+            GuardedInvoker current = guard;
+            DispatchMetrics currentMetrics = metrics;
+            int fanOut = 0;
             // ✅ CopyOnWriteArrayList provides safe iteration even during modifications
             for (UnsafeObserver observer : observers) {
-                try {
-                    observer.update(latestNews);
-                } catch (Exception e) {
-                    System.err.println("Error notifying observer: " + e.getMessage());
-                }
+                deliver(observer, latestNews, current, currentMetrics);
+                fanOut++;
+            }
+            if (currentMetrics != null) {
+                currentMetrics.recordPublish(fanOut);
             }
         }
 
@@ -146,9 +170,19 @@ public class ObserverThreadSafetyDemo {
 
     // ✅ THREAD-SAFE: ReadWriteLock approach for better performance
     static class ReadWriteLockNewsChannel implements UnsafeSubject {
-        private final List<UnsafeObserver> observers = new ArrayList<>();
+        private final SubscriberSet<UnsafeObserver> observers = new SubscriberSet<>();
         private final ReadWriteLock lock = new ReentrantReadWriteLock();
         private String latestNews;
+        private volatile GuardedInvoker guard;  // Optional, bounds how long the read lock is held per observer
+        private volatile DispatchMetrics metrics;  // null = not instrumented
+
+        public void setGuardedInvoker(GuardedInvoker guard) {
+            this.guard = guard;
+        }
+
+        public void setMetrics(DispatchMetrics metrics) {
+            this.metrics = metrics;
+        }
 
         public void publishNews(String news) {
             // Use read lock for notification (multiple threads can notify simultaneously)
@@ -165,9 +199,7 @@ public class ObserverThreadSafetyDemo {
         public void addObserver(UnsafeObserver observer) {
             lock.writeLock().lock();  // Exclusive access for modification
             try {
-                if (observer != null && !observers.contains(observer)) {
-                    observers.add(observer);
-                }
+                observers.add(observer);  // O(1), ignores null and duplicates
             } finally {
                 lock.writeLock().unlock();
             }
@@ -181,18 +213,22 @@ public class ObserverThreadSafetyDemo {
             } finally {
                 lock.writeLock().unlock();
             }
+            GuardedInvoker current = guard;
+            if (current != null) {
+                current.forget(observer);
+            }
         }
 
         @Override
         public void notifyObservers() {
-            // Called while holding read lock
-            List<UnsafeObserver> currentObservers = new ArrayList<>(observers);
-            for (UnsafeObserver observer : currentObservers) {
-                try {
-                    observer.update(latestNews);
-                } catch (Exception e) {
-                    System.err.println("Error notifying observer: " + e.getMessage());
-                }
+            GuardedInvoker current = guard;
+            DispatchMetrics currentMetrics = metrics;
+            // Called while holding read lock - writers are excluded, so no defensive copy is needed
+            for (UnsafeObserver observer : observers) {
+                deliver(observer, latestNews, current, currentMetrics);
+            }
+            if (currentMetrics != null) {
+                currentMetrics.recordPublish(observers.size());
             }
         }
 
@@ -206,6 +242,90 @@ public class ObserverThreadSafetyDemo {
         }
     }
 
+    // ✅ THREAD-SAFE: Lock-free registry - immutable array swapped by CAS
+    static class LockFreeNewsChannel implements UnsafeSubject {
+        private static final UnsafeObserver[] NO_OBSERVERS = new UnsafeObserver[0];
+
+        private final AtomicReference<UnsafeObserver[]> observers = new AtomicReference<>(NO_OBSERVERS);
+        private volatile String latestNews;
+        private volatile DispatchMetrics metrics;  // null = not instrumented
+
+        public void setMetrics(DispatchMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        public void publishNews(String news) {
+            latestNews = news;
+            dispatch(news);  // Pass the value along, another publisher may overwrite latestNews meanwhile
+        }
+
+        @Override
+        public void addObserver(UnsafeObserver observer) {
+            if (observer == null) {
+                return;
+            }
+            while (true) {
+                UnsafeObserver[] current = observers.get();
+                if (indexOf(current, observer) >= 0) {
+                    return;
+                }
+                UnsafeObserver[] next = Arrays.copyOf(current, current.length + 1);
+                next[current.length] = observer;
+                if (observers.compareAndSet(current, next)) {  // ✅ Retry if another writer won the race
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void removeObserver(UnsafeObserver observer) {
+            while (true) {
+                UnsafeObserver[] current = observers.get();
+                int index = indexOf(current, observer);
+                if (index < 0) {
+                    return;
+                }
+                UnsafeObserver[] next = NO_OBSERVERS;
+                if (current.length > 1) {
+                    next = new UnsafeObserver[current.length - 1];
+                    System.arraycopy(current, 0, next, 0, index);
+                    System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+                }
+                if (observers.compareAndSet(current, next)) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void notifyObservers() {
+            dispatch(latestNews);
+        }
+
+        private void dispatch(String news) {
+            // ✅ One volatile read, no lock and no copy - the array is never mutated after publication
+            UnsafeObserver[] snapshot = observers.get();
+            DispatchMetrics currentMetrics = metrics;
+            for (UnsafeObserver observer : snapshot) {
+                deliver(observer, news, null, currentMetrics);
+            }
+            if (currentMetrics != null) {
+                currentMetrics.recordPublish(snapshot.length);
+            }
+        }
+
+        private static int indexOf(UnsafeObserver[] array, UnsafeObserver observer) {
+            for (int i = 0; i < array.length; i++) {
+                if (array[i].equals(observer)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        public int getObserverCount() { return observers.get().length; }
+    }
+
     // ✅ THREAD-SAFE: Observer with atomic operations
     static class SafeSubscriber implements UnsafeObserver {
         private final String name;
@@ -227,6 +347,365 @@ public class ObserverThreadSafetyDemo {
         public int getMessageCount() { return messageCount.get(); }
     }
 
+    // What a subscriber's mailbox does when the publisher is faster than the subscriber
+    enum BackPressurePolicy {
+        DROP_OLDEST,     // Bounded queue, evict the oldest pending message to make room
+        BLOCK,           // Bounded queue, publisher waits for room (slowest subscriber sets the pace)
+        COALESCE_LATEST  // Single slot, only the newest pending message is kept
+    }
+
+    // ✅ THREAD-SAFE: One bounded mailbox per observer, drained by a shared executor
+    static class SubscriberMailbox implements Runnable {
+        private static final int DRAIN_BATCH = 64;  // Yield the worker after this many deliveries
+
+        private final UnsafeObserver observer;
+        private final BackPressurePolicy policy;
+        private final Executor executor;
+        private final BlockingQueue<String> queue;
+        private final AtomicReference<String> latest = new AtomicReference<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private final AtomicLong enqueued = new AtomicLong();
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile DispatchMetrics metrics;  // Set by the owning channel, null = not instrumented
+
+        // 'capacity' bounds the queue of DROP_OLDEST and BLOCK; COALESCE_LATEST always holds a single message
+        SubscriberMailbox(UnsafeObserver observer, BackPressurePolicy policy, int capacity, Executor executor) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("Mailbox capacity must be positive: " + capacity);
+            }
+            this.observer = observer;
+            this.policy = policy;
+            this.executor = executor;
+            this.queue = policy == BackPressurePolicy.COALESCE_LATEST ? null : new ArrayBlockingQueue<>(capacity);
+        }
+
+        void offer(String news) throws InterruptedException {
+            switch (policy) {
+                case DROP_OLDEST -> {
+                    while (!queue.offer(news)) {
+                        if (queue.poll() != null) {
+                            onDrop();
+                        }
+                    }
+                }
+                case BLOCK -> queue.put(news);
+                case COALESCE_LATEST -> {
+                    if (latest.getAndSet(news) != null) {
+                        onDrop();  // Previous value was never delivered
+                    }
+                }
+            }
+            enqueued.incrementAndGet();
+            schedule();
+        }
+
+        private void onDrop() {
+            dropped.incrementAndGet();
+            DispatchMetrics current = metrics;
+            if (current != null) {
+                current.recordDrop();
+            }
+        }
+
+        private void schedule() {
+            // At most one drain task per mailbox, so each observer sees its messages in order
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);  // Otherwise no later offer could schedule a drain again
+                    throw e;
+                }
+            }
+        }
+
+        private String next() {
+            return policy == BackPressurePolicy.COALESCE_LATEST ? latest.getAndSet(null) : queue.poll();
+        }
+
+        private boolean hasPending() {
+            return policy == BackPressurePolicy.COALESCE_LATEST ? latest.get() != null : !queue.isEmpty();
+        }
+
+        @Override
+        public void run() {
+            try {
+                String news;
+                DispatchMetrics current = metrics;
+                for (int i = 0; i < DRAIN_BATCH && (news = next()) != null; i++) {
+                    deliver(observer, news, null, current);  // Latency of the update() call, not time queued
+                    delivered.incrementAndGet();
+                }
+            } finally {
+                scheduled.set(false);
+                // A publisher may have enqueued after our last poll but before we cleared the flag
+                if (hasPending()) {
+                    schedule();
+                }
+            }
+        }
+
+        void setMetrics(DispatchMetrics metrics) { this.metrics = metrics; }
+        UnsafeObserver getObserver() { return observer; }
+        BackPressurePolicy getPolicy() { return policy; }
+        long getDelivered() { return delivered.get(); }
+        long getDropped() { return dropped.get(); }
+
+        // Messages accepted for this observer that are neither delivered nor dropped yet
+        long getLag() {
+            return enqueued.get() - delivered.get() - dropped.get();
+        }
+    }
+
+    // ✅ THREAD-SAFE: CopyOnWrite registry, but delivery happens off the publishing thread
+    static class AsyncCopyOnWriteNewsChannel implements UnsafeSubject {
+        private static final int DEFAULT_CAPACITY = 256;
+
+        private final CopyOnWriteArrayList<SubscriberMailbox> mailboxes = new CopyOnWriteArrayList<>();
+        private final Map<UnsafeObserver, SubscriberMailbox> mailboxByObserver = new ConcurrentHashMap<>();  // O(1) lookup
+        private final Executor executor;
+        private volatile String latestNews;
+        private volatile DispatchMetrics metrics;  // null = not instrumented
+
+        // Pass Executors.newVirtualThreadPerTaskExecutor() on Java 21+ or any shared pool
+        public AsyncCopyOnWriteNewsChannel(Executor executor) {
+            this.executor = Objects.requireNonNull(executor, "executor");
+        }
+
+        public void publishNews(String news) {
+            latestNews = news;
+            notifyObservers();
+        }
+
+        @Override
+        public void addObserver(UnsafeObserver observer) {
+            addObserver(observer, BackPressurePolicy.DROP_OLDEST, DEFAULT_CAPACITY);
+        }
+
+        public synchronized void addObserver(UnsafeObserver observer, BackPressurePolicy policy, int capacity) {
+            // synchronized only guards the check-then-act, publishers never take this lock
+            if (observer != null && findMailbox(observer) == null) {
+                SubscriberMailbox mailbox = new SubscriberMailbox(observer, policy, capacity, executor);
+                mailbox.setMetrics(metrics);
+                mailboxByObserver.put(observer, mailbox);
+                mailboxes.add(mailbox);
+            }
+        }
+
+        @Override
+        public synchronized void removeObserver(UnsafeObserver observer) {
+            SubscriberMailbox mailbox = observer == null ? null : mailboxByObserver.remove(observer);
+            if (mailbox != null) {
+                mailboxes.remove(mailbox);
+            }
+        }
+
+        @Override
+        public void notifyObservers() {
+            String news = latestNews;
+            DispatchMetrics currentMetrics = metrics;
+            int fanOut = 0;
+            // Only enqueues; observer.update() runs on the executor
+            for (SubscriberMailbox mailbox : mailboxes) {
+                try {
+                    mailbox.offer(news);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                fanOut++;
+            }
+            if (currentMetrics != null) {
+                currentMetrics.recordPublish(fanOut);
+            }
+        }
+
+        // Queue depth is the total lag of all mailboxes
+        public synchronized void setMetrics(DispatchMetrics metrics) {
+            this.metrics = metrics;
+            for (SubscriberMailbox mailbox : mailboxes) {
+                mailbox.setMetrics(metrics);
+            }
+            if (metrics != null) {
+                metrics.setQueueDepth(() -> {
+                    long lag = 0;
+                    for (SubscriberMailbox mailbox : mailboxes) {
+                        lag += mailbox.getLag();
+                    }
+                    return lag;
+                });
+            }
+        }
+
+        // Per-subscriber lag, -1 if the observer is not subscribed
+        public long getLag(UnsafeObserver observer) {
+            SubscriberMailbox mailbox = findMailbox(observer);
+            return mailbox == null ? -1 : mailbox.getLag();
+        }
+
+        public Map<String, Long> getLagByObserver() {
+            Map<String, Long> lag = new LinkedHashMap<>();
+            for (SubscriberMailbox mailbox : mailboxes) {
+                lag.put(mailbox.getObserver().getName(), mailbox.getLag());
+            }
+            return lag;
+        }
+
+        public long getDropped(UnsafeObserver observer) {
+            SubscriberMailbox mailbox = findMailbox(observer);
+            return mailbox == null ? 0 : mailbox.getDropped();
+        }
+
+        public int getObserverCount() { return mailboxes.size(); }
+
+        private SubscriberMailbox findMailbox(UnsafeObserver observer) {
+            return observer == null ? null : mailboxByObserver.get(observer);
+        }
+    }
+
+    // ✅ THREAD-SAFE: Runs each observer call under a deadline and trips observers that keep failing
+    static class GuardedInvoker {
+        private enum BreakerState { CLOSED, OPEN, HALF_OPEN }
+
+        private static final class Breaker {
+            private final AtomicReference<BreakerState> state = new AtomicReference<>(BreakerState.CLOSED);
+            private final AtomicInteger consecutiveFailures = new AtomicInteger();
+            private volatile long openUntilNanos;
+        }
+
+        private final ExecutorService callExecutor;
+        private final long deadlineNanos;
+        private final int failureThreshold;
+        private final long coolDownNanos;
+        private final Map<UnsafeObserver, Breaker> breakers = new ConcurrentHashMap<>();
+
+        private final LatencyHistogram guardedCallLatency = new LatencyHistogram();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder trips = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+
+        // callExecutor runs the observer calls, a hung call keeps its thread until the observer returns
+        public GuardedInvoker(ExecutorService callExecutor, long deadlineMillis, int failureThreshold, long coolDownMillis) {
+            if (deadlineMillis <= 0 || failureThreshold <= 0 || coolDownMillis < 0) {
+                throw new IllegalArgumentException("deadline and threshold must be positive, cool-down not negative");
+            }
+            this.callExecutor = Objects.requireNonNull(callExecutor, "callExecutor");
+            this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+            this.failureThreshold = failureThreshold;
+            this.coolDownNanos = TimeUnit.MILLISECONDS.toNanos(coolDownMillis);
+        }
+
+        // Returns false if the call was skipped, failed or timed out; never throws
+        public boolean invoke(UnsafeObserver observer, String message) {
+            Breaker breaker = breakers.computeIfAbsent(observer, o -> new Breaker());
+            if (!allowCall(breaker)) {
+                skipped.increment();  // ✅ Tripped observers cost one map lookup, not a deadline
+                return false;
+            }
+            long start = System.nanoTime();
+            boolean succeeded = false;
+            Future<?> call = null;
+            try {
+                call = callExecutor.submit(() -> observer.update(message));
+                call.get(deadlineNanos, TimeUnit.NANOSECONDS);
+                succeeded = true;
+            } catch (TimeoutException e) {
+                timeouts.increment();
+                call.cancel(true);  // Interrupt it, a hung observer may still ignore that
+            } catch (ExecutionException | RejectedExecutionException e) {
+                failures.increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (call != null) {
+                    call.cancel(true);
+                }
+                // The outcome is unknown, so neither close nor count a failure. But if this was the half-open
+                // trial, hand the breaker back to OPEN with a fresh cool-down, or no caller would ever retry it.
+                if (breaker.state.get() == BreakerState.HALF_OPEN) {
+                    breaker.openUntilNanos = System.nanoTime() + coolDownNanos;
+                    breaker.state.compareAndSet(BreakerState.HALF_OPEN, BreakerState.OPEN);
+                }
+                return false;
+            } finally {
+                guardedCallLatency.record(System.nanoTime() - start);
+            }
+            onResult(observer, breaker, succeeded);
+            return succeeded;
+        }
+
+        private boolean allowCall(Breaker breaker) {
+            return switch (breaker.state.get()) {
+                case CLOSED -> true;
+                // After the cool-down exactly one caller gets to try the observer again
+                case OPEN -> System.nanoTime() - breaker.openUntilNanos >= 0
+                        && breaker.state.compareAndSet(BreakerState.OPEN, BreakerState.HALF_OPEN);
+                case HALF_OPEN -> false;  // A trial call is already in flight
+            };
+        }
+
+        private void onResult(UnsafeObserver observer, Breaker breaker, boolean succeeded) {
+            if (succeeded) {
+                breaker.consecutiveFailures.set(0);
+                breaker.state.set(BreakerState.CLOSED);
+                return;
+            }
+            if (breaker.state.get() == BreakerState.HALF_OPEN
+                    || breaker.consecutiveFailures.incrementAndGet() >= failureThreshold) {
+                breaker.openUntilNanos = System.nanoTime() + coolDownNanos;
+                breaker.state.set(BreakerState.OPEN);
+                breaker.consecutiveFailures.set(0);
+                trips.increment();
+                System.err.println("Circuit opened for observer " + observer.getName());
+            }
+        }
+
+        public boolean isTripped(UnsafeObserver observer) {
+            Breaker breaker = breakers.get(observer);
+            return breaker != null && breaker.state.get() != BreakerState.CLOSED;
+        }
+
+        // Forget the breaker of an observer that left the channel
+        public void forget(UnsafeObserver observer) {
+            breakers.remove(observer);
+        }
+
+        public LatencyHistogram getGuardedCallLatency() { return guardedCallLatency; }
+        public long getTimeouts() { return timeouts.sum(); }
+        public long getFailures() { return failures.sum(); }
+        public long getTrips() { return trips.sum(); }
+        public long getSkipped() { return skipped.sum(); }
+
+        @Override
+        public String toString() {
+            return String.format("timeouts=%d failures=%d trips=%d skipped=%d guardedCalls{%s}",
+                getTimeouts(), getFailures(), getTrips(), getSkipped(), guardedCallLatency);
+        }
+    }
+
+    // Metrics keyed by observer name instead of class, every subscriber here is an anonymous or shared class
+    static DispatchMetrics newChannelMetrics(String channel) {
+        return new DispatchMetrics(channel, observer -> ((UnsafeObserver) observer).getName());
+    }
+
+    // One observer call: through the guard if there is one, timed if there are metrics
+    static void deliver(UnsafeObserver observer, String message, GuardedInvoker guard, DispatchMetrics metrics) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        if (guard != null) {
+            guard.invoke(observer, message);
+        } else {
+            try {
+                observer.update(message);
+            } catch (Exception e) {
+                System.err.println("Error notifying observer: " + e.getMessage());
+            }
+        }
+        if (metrics != null) {
+            metrics.recordDelivery(observer, System.nanoTime() - start);
+        }
+    }
+
     public static void main(String[] args) throws InterruptedException {
         System.out.println("=== Observer Pattern Thread Safety Demo ===\n");
 
@@ -241,6 +720,15 @@ public class ObserverThreadSafetyDemo {
 
         // Demo 4: ReadWriteLock observer pattern
         demonstrateReadWriteLockObserver();
+
+        // Demo 5: Asynchronous per-subscriber mailboxes
+        demonstrateAsyncDispatchObserver();
+
+        // Demo 6: Lock-free CAS registry
+        demonstrateLockFreeObserver();
+
+        // Demo 7: Deadline-guarded calls with circuit breaking
+        demonstrateGuardedObserver();
     }
 
     static void demonstrateUnsafeObserver() throws InterruptedException {
@@ -397,6 +885,142 @@ public class ObserverThreadSafetyDemo {
         executor.shutdown();
         
         System.out.printf("✅ ReadWriteLock pattern completed safely%n");
+        System.out.printf("Final observer count: %d%n%n", channel.getObserverCount());
+    }
+
+    static void demonstrateAsyncDispatchObserver() throws InterruptedException {
+        System.out.println("5. ✅ ASYNC MAILBOX OBSERVER PATTERN");
+
+        ExecutorService dispatcher = Executors.newFixedThreadPool(4);
+        AsyncCopyOnWriteNewsChannel channel = new AsyncCopyOnWriteNewsChannel(dispatcher);
+        DispatchMetrics metrics = newChannelMetrics("AsyncCopyOnWrite");
+        channel.setMetrics(metrics);
+
+        // A subscriber that takes 20ms per message would stall a synchronous publisher
+        UnsafeObserver slowSubscriber = new UnsafeObserver() {
+            private final AtomicInteger received = new AtomicInteger();
+
+            @Override
+            public void update(String message) {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                received.incrementAndGet();
+            }
+
+            @Override
+            public String getName() { return "SlowSub"; }
+        };
+        SafeSubscriber fastSubscriber = new SafeSubscriber("FastSub");
+
+        channel.addObserver(slowSubscriber, BackPressurePolicy.COALESCE_LATEST, 1);
+        channel.addObserver(fastSubscriber, BackPressurePolicy.DROP_OLDEST, 16);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            channel.publishNews("Async News #" + i);
+        }
+        long publishMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        System.out.printf("Published 10 messages in %d µs, lag right after publishing: %s%n",
+            publishMicros, channel.getLagByObserver());
+
+        Thread.sleep(200);
+        dispatcher.shutdown();
+        dispatcher.awaitTermination(1, TimeUnit.SECONDS);
+
+        System.out.printf("✅ Async pattern completed - lag: %s, SlowSub coalesced away %d stale messages%n",
+            channel.getLagByObserver(), channel.getDropped(slowSubscriber));
+        System.out.println(metrics.snapshot());
+        System.out.printf("Final observer count: %d%n%n", channel.getObserverCount());
+    }
+
+    static void demonstrateLockFreeObserver() throws InterruptedException {
+        System.out.println("6. ✅ LOCK-FREE (CAS) OBSERVER PATTERN");
+
+        LockFreeNewsChannel channel = new LockFreeNewsChannel();
+        List<SafeSubscriber> subscribers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            SafeSubscriber subscriber = new SafeSubscriber("CASSub" + i);
+            subscribers.add(subscriber);
+            channel.addObserver(subscriber);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch latch = new CountDownLatch(30);
+
+        for (int i = 0; i < 30; i++) {
+            final int taskId = i;
+            executor.submit(() -> {
+                try {
+                    if (taskId % 7 == 0) {
+                        channel.addObserver(new SafeSubscriber("DynamicCASSub" + taskId));
+                    } else if (taskId % 11 == 0) {
+                        channel.removeObserver(subscribers.get(taskId % subscribers.size()));
+                    } else {
+                        channel.publishNews("CAS News #" + taskId);
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+        executor.shutdown();
+
+        System.out.printf("✅ Lock-free pattern completed safely%n");
         System.out.printf("Final observer count: %d%n", channel.getObserverCount());
     }
-}
\ No newline at end of file
+
+    static void demonstrateGuardedObserver() throws InterruptedException {
+        System.out.println("\n7. ✅ DEADLINE-GUARDED OBSERVER CALLS WITH CIRCUIT BREAKER");
+
+        ExecutorService callExecutor = Executors.newCachedThreadPool();
+        GuardedInvoker guard = new GuardedInvoker(callExecutor, 50, 3, 300);
+        CopyOnWriteNewsChannel channel = new CopyOnWriteNewsChannel();
+        channel.setGuardedInvoker(guard);
+
+        // Hangs for 10 seconds, without the guard every publish would wait for it
+        UnsafeObserver hangingSubscriber = new UnsafeObserver() {
+            @Override
+            public void update(String message) {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public String getName() { return "HangingSub"; }
+        };
+        UnsafeObserver failingSubscriber = new UnsafeObserver() {
+            @Override
+            public void update(String message) {
+                throw new IllegalStateException("downstream unavailable");
+            }
+
+            @Override
+            public String getName() { return "FailingSub"; }
+        };
+        SafeSubscriber healthySubscriber = new SafeSubscriber("HealthySub");
+
+        channel.addObserver(hangingSubscriber);
+        channel.addObserver(failingSubscriber);
+        channel.addObserver(healthySubscriber);
+
+        for (int i = 0; i < 6; i++) {
+            long start = System.nanoTime();
+            channel.publishNews("Guarded News #" + i);
+            System.out.printf("Publish #%d took %d ms, HangingSub tripped: %b, FailingSub tripped: %b%n", i,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                guard.isTripped(hangingSubscriber), guard.isTripped(failingSubscriber));
+        }
+
+        callExecutor.shutdownNow();
+        System.out.printf("✅ Guarded pattern completed - %s%n", guard);
+        System.out.printf("HealthySub received %d of 6 messages%n", healthySubscriber.getMessageCount());
+    }
+}
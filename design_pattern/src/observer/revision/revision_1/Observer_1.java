@@ -3,11 +3,79 @@ package observer.revision.revision_1;
 import java.util.ArrayList;
 import java.util.List;
 
+import observer.DispatchMetrics;
+
 // ✅ GOOD: Proper Observer interface - defines the contract
 // LEARNING POINT 1: Could use generics for type safety: Observer<T>
 // LEARNING POINT 2: Could have multiple update methods for different data types
 interface Observer {
     void update(String message);
+
+    // Members that render the message override this to reuse the envelope's cached forms
+    default void update(MessageEnvelope envelope) {
+        update(envelope.getText());
+    }
+}
+
+// The ways a member can show a group message, each rendered at most once per message
+enum RenderFormat {
+    PLAIN(""),
+    GROUP_NOTIFICATION("receives a new message from the group: ");
+
+    private final String prefix;
+
+    RenderFormat(String prefix) {
+        this.prefix = prefix;
+    }
+
+    String render(String text) {
+        return prefix.isEmpty() ? text : prefix + text;
+    }
+}
+
+// Immutable message shared by every member of one fan-out. Rendered forms are built on first use and cached,
+// so a post costs one string per format in use rather than one per member.
+// The cache is a benign race: two members may both render a form, but Strings are immutable and safe to publish.
+final class MessageEnvelope {
+    private static final RenderFormat[] FORMATS = RenderFormat.values();
+
+    private final String text;
+    private final long sentAtMillis;
+    private final String[] rendered = new String[FORMATS.length];
+
+    MessageEnvelope(String text) {
+        this.text = text;
+        this.sentAtMillis = System.currentTimeMillis();
+        this.rendered[RenderFormat.PLAIN.ordinal()] = text; // Pre-rendered
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public long getSentAtMillis() {
+        return sentAtMillis;
+    }
+
+    public String render(RenderFormat format) {
+        String form = rendered[format.ordinal()];
+        if (form == null) {
+            form = format.render(text);
+            rendered[format.ordinal()] = form;
+        }
+        return form;
+    }
+
+    // How many forms have been built so far, PLAIN included
+    public int getRenderedFormCount() {
+        int count = 0;
+        for (String form : rendered) {
+            if (form != null) {
+                count++;
+            }
+        }
+        return count;
+    }
 }
 
 // ✅ GOOD: Proper Subject interface - defines observable contract
@@ -26,6 +94,8 @@ interface Subject {
 class Group implements Subject {
     List<Observer> listOfMembers; // LEARNING POINT 8: Should be private
     String message; // LEARNING POINT 9: Should be private
+    MessageEnvelope envelope; // One immutable envelope per message, shared by all members
+    private DispatchMetrics metrics; // null = not instrumented
 
     public Group() {
         this.listOfMembers = new ArrayList<>();
@@ -35,6 +105,7 @@ class Group implements Subject {
     public void sentMessage(String message) {
         System.out.println("Got new message on group: " + message);
         this.message = message;
+        this.envelope = new MessageEnvelope(message);
         notifyObserver(); // LEARNING POINT 11: Good - automatic notification
     }
 
@@ -51,10 +122,22 @@ class Group implements Subject {
     @Override
     public void notifyObserver() {
         // LEARNING POINT 14: Good - demonstrates "push" model (data sent to observers)
+        DispatchMetrics metrics = this.metrics;
         for (Observer observer: listOfMembers) {
-            observer.update(this.message); // LEARNING POINT 15: Could handle exceptions
+            long start = metrics == null ? 0 : System.nanoTime();
+            observer.update(this.envelope); // LEARNING POINT 15: Could handle exceptions
+            if (metrics != null) {
+                metrics.recordDelivery(observer, System.nanoTime() - start);
+            }
+        }
+        if (metrics != null) {
+            metrics.recordPublish(listOfMembers.size());
         }
     }
+
+    public void setMetrics(DispatchMetrics metrics) {
+        this.metrics = metrics;
+    }
 }
 
 // LEARNING POINT 16: Abstract class seems unnecessary - no abstract methods
@@ -80,9 +163,15 @@ class Member1 extends MemberDetails implements Observer {
 
     @Override
     public void update(String message) {
-        System.out.println("Member1 receives a new message from the group: " + message);
+        update(new MessageEnvelope(message));
         // LEARNING POINT 24: Could show different reaction behaviors here
     }
+
+    @Override
+    public void update(MessageEnvelope envelope) {
+        System.out.print("Member1 ");
+        System.out.println(envelope.render(RenderFormat.GROUP_NOTIFICATION)); // Shared with the other members
+    }
 }
 
 // LEARNING POINT 25: Same issues as Member1 - demonstrates pattern but not realistic differences
@@ -93,7 +182,13 @@ class Member2 extends MemberDetails implements Observer {
 
     @Override
     public void update(String message) {
-        System.out.println("Member2 receives a new message from the group: " + message);
+        update(new MessageEnvelope(message));
+    }
+
+    @Override
+    public void update(MessageEnvelope envelope) {
+        System.out.print("Member2 ");
+        System.out.println(envelope.render(RenderFormat.GROUP_NOTIFICATION)); // Shared with the other members
     }
 }
 
@@ -104,7 +199,13 @@ class Member3 extends MemberDetails implements Observer {
 
     @Override
     public void update(String message) {
-        System.out.println("Member3 receives a new message from the group: " + message);
+        update(new MessageEnvelope(message));
+    }
+
+    @Override
+    public void update(MessageEnvelope envelope) {
+        System.out.print("Member3 ");
+        System.out.println(envelope.render(RenderFormat.GROUP_NOTIFICATION)); // Shared with the other members
     }
 }
 
@@ -133,6 +234,10 @@ public class Observer_1 {
 
         // ✅ GOOD: Shows that removed observer doesn't get notified
         group1.sentMessage("UPDATE! meeting time updated from 7PM to 9PM");
+
+        // Three members got the last message, but its notification line was rendered only once
+        System.out.println("Forms rendered for the last message: " + group1.envelope.getRenderedFormCount()
+                + " (plain + group notification)");
         
         // LEARNING POINT 27: Could demonstrate more Observer pattern features:
         // - Multiple subjects
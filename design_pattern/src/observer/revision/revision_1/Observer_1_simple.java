@@ -1,7 +1,12 @@
 package observer.revision.revision_1;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+
+import observer.DispatchMetrics;
+import observer.SubscriberSet;
 
 // SIMPLE Observer Pattern for Learning Core Concepts
 
@@ -9,6 +14,19 @@ import java.util.List;
 interface MessageObserver {
     void onMessageReceived(String message);
     String getName(); // Added for better identification
+
+    // Catch-up delivery of everything missed while offline, oldest first
+    default void onMessagesReplayed(List<String> messages) {
+        for (String message : messages) {
+            onMessageReceived(message);
+        }
+    }
+}
+
+// Lets a subject hear about an observer going offline/online without polling it
+interface PresenceListener {
+    void memberWentOffline(MessageObserver member);
+    void memberCameOnline(MessageObserver member);
 }
 
 // 2. SUBJECT INTERFACE - Defines observable behavior
@@ -18,48 +36,178 @@ interface MessageSubject {
     void notifyObservers();
 }
 
+// Append-only message log kept in fixed-size segments. Each slot is one reference to the already shared message
+// String, and whole segments are released once every reader has moved past them.
+class MessageLog {
+    private static final int SEGMENT_SIZE = 256;
+
+    private final List<String[]> segments = new ArrayList<>();
+    private long segmentBase; // Sequence number of segments.get(0)[0]
+    private long tail;        // Sequence number the next append gets
+
+    public long append(String message) {
+        long offset = tail - segmentBase;
+        int segmentIndex = (int) (offset / SEGMENT_SIZE);
+        if (segmentIndex == segments.size()) {
+            segments.add(new String[SEGMENT_SIZE]);
+        }
+        segments.get(segmentIndex)[(int) (offset % SEGMENT_SIZE)] = message;
+        return tail++;
+    }
+
+    public long tail() {
+        return tail;
+    }
+
+    // Messages in [from, tail) as one batch
+    public List<String> readFrom(long from) {
+        long start = Math.max(from, segmentBase);
+        List<String> batch = new ArrayList<>((int) Math.max(0, tail - start));
+        for (long sequence = start; sequence < tail; sequence++) {
+            long offset = sequence - segmentBase;
+            batch.add(segments.get((int) (offset / SEGMENT_SIZE))[(int) (offset % SEGMENT_SIZE)]);
+        }
+        return batch;
+    }
+
+    // No reader needs anything before 'sequence' any more
+    public void trimBefore(long sequence) {
+        if (sequence >= tail) {
+            segments.clear();
+            segmentBase = tail;
+            return;
+        }
+        while (!segments.isEmpty() && segmentBase + SEGMENT_SIZE <= sequence) {
+            segments.remove(0);
+            segmentBase += SEGMENT_SIZE;
+        }
+    }
+
+    public int retainedSegments() {
+        return segments.size();
+    }
+}
+
 // 3. CONCRETE SUBJECT - The thing being observed
-class ChatGroup implements MessageSubject {
-    private List<MessageObserver> members;
+class ChatGroup implements MessageSubject, PresenceListener {
+    private SubscriberSet<MessageObserver> members; // O(1) join/leave even with 100k members
+    private final KeywordRouter keywordRouter = new KeywordRouter(); // Bots are woken only on a trigger match
+    private final MessageLog messageLog = new MessageLog();
+    private final Map<MessageObserver, Long> offlineCursors = new LinkedHashMap<>(); // Next unread sequence
     private String latestMessage;
     private String groupName;
+    private DispatchMetrics metrics; // null = not instrumented
 
     public ChatGroup(String groupName) {
         this.groupName = groupName;
-        this.members = new ArrayList<>();
+        this.members = new SubscriberSet<>();
     }
 
     // Business method that triggers notification
     public void postMessage(String message) {
         System.out.printf("\n[%s] New message posted: \"%s\"%n", groupName, message);
         this.latestMessage = message;
+        if (!offlineCursors.isEmpty()) {
+            messageLog.append(message); // Only kept while someone is offline
+        }
         notifyObservers(); // Automatic notification
     }
 
     @Override
     public void subscribe(MessageObserver observer) {
-        if (observer != null && !members.contains(observer)) {
-            members.add(observer);
+        if (observer != null && !members.contains(observer) && !keywordRouter.contains(observer)
+                && !offlineCursors.containsKey(observer)) {
+            if (observer instanceof KeywordObserver) {
+                keywordRouter.add((KeywordObserver) observer);
+            } else if (observer instanceof GroupMember && !((GroupMember) observer).isOnline()) {
+                offlineCursors.put(observer, messageLog.tail()); // Joins offline: gets everything from now on replayed
+            } else {
+                members.add(observer);
+            }
+            if (observer instanceof GroupMember) {
+                ((GroupMember) observer).addPresenceListener(this);
+            }
             System.out.printf("%s joined the group '%s'%n", observer.getName(), groupName);
         }
     }
 
     @Override
     public void unsubscribe(MessageObserver observer) {
-        if (members.remove(observer)) {
+        boolean wasOffline = offlineCursors.remove(observer) != null;
+        if (members.remove(observer) || keywordRouter.remove(observer) || wasOffline) {
+            if (observer instanceof GroupMember) {
+                ((GroupMember) observer).removePresenceListener(this);
+            }
+            trimMessageLog();
             System.out.printf("%s left the group '%s'%n", observer.getName(), groupName);
         }
     }
 
+    // Members first in join order, then the bots whose trigger matches in order of first match. A bot therefore
+    // always hears a message after every member, even if it joined before some of them.
     @Override
     public void notifyObservers() {
-        System.out.printf("Notifying %d members...%n", members.size());
+        System.out.printf("Notifying %d members...%n", members.size() + keywordRouter.size());
+        DispatchMetrics metrics = this.metrics;
+        int fanOut = 0;
         for (MessageObserver observer : members) {
-            observer.onMessageReceived(latestMessage);
+            deliver(observer, metrics);
+            fanOut++;
+        }
+        // One scan of the message instead of every bot lower-casing and searching it
+        for (KeywordObserver bot : keywordRouter.match(latestMessage)) {
+            deliver(bot, metrics);
+            fanOut++;
+        }
+        if (metrics != null) {
+            metrics.recordPublish(fanOut); // Bots whose trigger did not match are not part of the fan-out
+        }
+    }
+
+    private void deliver(MessageObserver observer, DispatchMetrics metrics) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        observer.onMessageReceived(latestMessage);
+        if (metrics != null) {
+            metrics.recordDelivery(observer, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void memberWentOffline(MessageObserver member) {
+        // Offline members leave the fan-out entirely until they come back
+        if (members.remove(member)) {
+            offlineCursors.put(member, messageLog.tail());
+        }
+    }
+
+    @Override
+    public void memberCameOnline(MessageObserver member) {
+        Long cursor = offlineCursors.remove(member);
+        if (cursor == null) {
+            return;
+        }
+        List<String> missed = messageLog.readFrom(cursor);
+        members.add(member);
+        trimMessageLog();
+        if (!missed.isEmpty()) {
+            member.onMessagesReplayed(missed);
         }
     }
 
-    public int getMemberCount() { return members.size(); }
+    private void trimMessageLog() {
+        long oldestCursor = messageLog.tail();
+        for (long cursor : offlineCursors.values()) {
+            oldestCursor = Math.min(oldestCursor, cursor);
+        }
+        messageLog.trimBefore(oldestCursor);
+    }
+
+    public void setMetrics(DispatchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public int getMemberCount() { return members.size() + keywordRouter.size() + offlineCursors.size(); }
+    public int getOfflineMemberCount() { return offlineCursors.size(); }
     public String getGroupName() { return groupName; }
 }
 
@@ -68,6 +216,7 @@ class GroupMember implements MessageObserver {
     private String name;
     private String email;
     private boolean isOnline;
+    private final List<PresenceListener> presenceListeners = new ArrayList<>();
 
     public GroupMember(String name, String email) {
         this.name = name;
@@ -84,20 +233,50 @@ class GroupMember implements MessageObserver {
         }
     }
 
+    @Override
+    public void onMessagesReplayed(List<String> messages) {
+        System.out.printf("  📬 %s caught up on %d missed message(s):%n", name, messages.size());
+        for (String message : messages) {
+            System.out.printf("     - \"%s\"%n", message);
+        }
+    }
+
     @Override
     public String getName() {
         return name;
     }
 
+    public void addPresenceListener(PresenceListener listener) {
+        if (!presenceListeners.contains(listener)) {
+            presenceListeners.add(listener);
+        }
+    }
+
+    public void removePresenceListener(PresenceListener listener) {
+        presenceListeners.remove(listener);
+    }
+
     // Unique behavior for this observer type
     public void goOffline() {
+        if (!isOnline) {
+            return;
+        }
         this.isOnline = false;
         System.out.printf("%s went offline%n", name);
+        for (PresenceListener listener : new ArrayList<>(presenceListeners)) {
+            listener.memberWentOffline(this);
+        }
     }
 
     public void goOnline() {
+        if (isOnline) {
+            return;
+        }
         this.isOnline = true;
         System.out.printf("%s came online%n", name);
+        for (PresenceListener listener : new ArrayList<>(presenceListeners)) {
+            listener.memberCameOnline(this); // Each group replays what was missed in one batch
+        }
     }
 
     public boolean isOnline() { return isOnline; }
@@ -105,7 +284,7 @@ class GroupMember implements MessageObserver {
 }
 
 // 5. DIFFERENT OBSERVER TYPE - Shows polymorphic behavior
-class BotObserver implements MessageObserver {
+class BotObserver implements KeywordObserver {
     private String botName;
     private String trigger;
 
@@ -116,11 +295,8 @@ class BotObserver implements MessageObserver {
 
     @Override
     public void onMessageReceived(String message) {
-        if (message.toLowerCase().contains(trigger.toLowerCase())) {
-            System.out.printf("  🤖 %s (Bot) auto-responded to keyword '%s'%n", botName, trigger);
-        } else {
-            System.out.printf("  🤖 %s (Bot) is listening...%n", botName);
-        }
+        // KeywordRouter only calls bots whose trigger is in the message
+        System.out.printf("  🤖 %s (Bot) auto-responded to keyword '%s'%n", botName, trigger);
     }
 
     @Override
@@ -128,6 +304,7 @@ class BotObserver implements MessageObserver {
         return botName + " (Bot)";
     }
 
+    @Override
     public String getTrigger() { return trigger; }
 }
 